@@ -0,0 +1,83 @@
+package com.fintech.benchmark;
+
+import com.fintech.model.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The balance arithmetic of applying deposits and withdrawals: each credit or debit is added to the running
+ * balance and a debit that would overdraw it is refused, as apply-transaction and bulk chunks do. The same
+ * amounts are applied as Money and as BigDecimal at scale 2. Run with -prof gc to compare allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BalanceUpdateBenchmark {
+    private static final int UPDATES = 1000;
+
+    private Money[] changes;
+    private BigDecimal[] decimalChanges;
+    private Money openingBalance;
+    private BigDecimal decimalOpeningBalance;
+
+    @Setup
+    public void setUp() {
+        // Mostly deposits, with withdrawals now and then large enough to be refused
+        SplittableRandom random = new SplittableRandom(42);
+        changes = new Money[UPDATES];
+        decimalChanges = new BigDecimal[UPDATES];
+        for (int i = 0; i < UPDATES; i++) {
+            boolean withdrawal = random.nextInt(4) == 0;
+            long minorUnits = 100 + random.nextInt(withdrawal ? 200_000 : 50_000);
+            changes[i] = Money.ofMinor(withdrawal ? -minorUnits : minorUnits);
+            decimalChanges[i] = changes[i].toBigDecimal();
+        }
+        openingBalance = Money.ofMinor(10_000);
+        decimalOpeningBalance = openingBalance.toBigDecimal();
+        if (applyBigDecimal().compareTo(applyMoney().toBigDecimal()) != 0) {
+            throw new IllegalStateException("Money and BigDecimal balances differ");
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPDATES)
+    public Money applyMoney() {
+        Money balance = openingBalance;
+        for (Money change : changes) {
+            Money updated = balance.plus(change);
+            if (!updated.isNegative()) {
+                balance = updated;
+            }
+        }
+        return balance;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPDATES)
+    public BigDecimal applyBigDecimal() {
+        BigDecimal balance = decimalOpeningBalance;
+        for (BigDecimal change : decimalChanges) {
+            BigDecimal updated = balance.add(change);
+            if (updated.signum() >= 0) {
+                balance = updated;
+            }
+        }
+        return balance;
+    }
+}
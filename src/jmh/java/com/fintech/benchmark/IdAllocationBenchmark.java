@@ -0,0 +1,136 @@
+package com.fintech.benchmark;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts per second through Hibernate with ids from a table-backed sequence, as the entities get them on MySQL:
+ * one *_seq round trip (in its own transaction) per row with allocationSize = 1, against one per 50 rows with the
+ * pooled-lo blocks the entities use now. Runs on an in-memory H2 in MySQL mode, so the database is cheap and the
+ * difference is mostly the allocation work itself; against a real server every saved round trip also saves its
+ * network latency and a row lock on the sequence.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdAllocationBenchmark {
+    private static final int ROWS_PER_TRANSACTION = 100;
+
+    @Param({"perRow", "pooled"})
+    private String allocation;
+
+    private SessionFactory sessionFactory;
+
+    @Setup
+    public void setUp() {
+        // Without Spring Boot's logging setup logback logs everything at DEBUG, which would be measured too
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(ch.qos.logback.classic.Level.WARN);
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.connection.url", "jdbc:h2:mem:ids;MODE=MySQL;DB_CLOSE_DELAY=-1")
+                .applySetting("hibernate.connection.username", "sa")
+                .applySetting("hibernate.connection.password", "")
+                .applySetting("hibernate.connection.pool_size", "4")
+                .applySetting("hibernate.dialect", "org.hibernate.dialect.MySQL8Dialect")
+                .applySetting("hibernate.hbm2ddl.auto", "create")
+                .applySetting("hibernate.jdbc.batch_size", "50")
+                .applySetting("hibernate.order_inserts", "true")
+                .applySetting("hibernate.id.optimizer.pooled.preferred", "pooled-lo")
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClass(PerRowIdRow.class)
+                .addAnnotatedClass(PooledIdRow.class)
+                .buildMetadata()
+                .buildSessionFactory();
+    }
+
+    @TearDown(Level.Iteration)
+    public void clear() {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.createQuery("delete from " + ("pooled".equals(allocation) ? "PooledIdRow" : "PerRowIdRow")).executeUpdate();
+            session.getTransaction().commit();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_TRANSACTION)
+    public void insert() {
+        boolean pooled = "pooled".equals(allocation);
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (int i = 0; i < ROWS_PER_TRANSACTION; i++) {
+                session.persist(pooled ? new PooledIdRow(i) : new PerRowIdRow(i));
+            }
+            session.getTransaction().commit();
+        }
+    }
+
+    @Entity(name = "PerRowIdRow")
+    @Table(name = "per_row_id_row")
+    @SequenceGenerator(name = "per_row_id_row_gen", sequenceName = "per_row_id_row_seq", allocationSize = 1)
+    public static class PerRowIdRow {
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "per_row_id_row_gen")
+        private Long id;
+        private long amount;
+
+        protected PerRowIdRow() {
+        }
+
+        PerRowIdRow(long amount) {
+            this.amount = amount;
+        }
+    }
+
+    @Entity(name = "PooledIdRow")
+    @Table(name = "pooled_id_row")
+    @SequenceGenerator(name = "pooled_id_row_gen", sequenceName = "pooled_id_row_seq", allocationSize = 50)
+    public static class PooledIdRow {
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pooled_id_row_gen")
+        private Long id;
+        private long amount;
+
+        protected PooledIdRow() {
+        }
+
+        PooledIdRow(long amount) {
+            this.amount = amount;
+        }
+    }
+}
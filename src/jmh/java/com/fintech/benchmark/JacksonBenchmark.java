@@ -0,0 +1,98 @@
+package com.fintech.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fintech.dto.ResponseDto;
+import com.fintech.dto.response.TransactionStatement;
+import com.fintech.dto.response.TransactionStatementPage;
+import com.fintech.model.Loan;
+import com.fintech.model.LoanInstallment;
+import com.fintech.model.Money;
+import com.fintech.model.enums.LoanStatus;
+import com.fintech.model.enums.RepaymentMethod;
+import com.fintech.model.enums.TransactionType;
+import com.fintech.util.AmortizationCalculator;
+import com.fintech.util.AmortizationCalculator.Schedule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.fintech.dto.ApiResponse.ok;
+
+/**
+ * Writing the ResponseDto bodies of the largest responses, a statement page and a loan schedule, with
+ * a mapper configured the way Spring Boot configures the application's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JacksonBenchmark {
+    @Param({"20", "500"})
+    private int statementLines;
+
+    private ObjectMapper objectMapper;
+    private ResponseDto<TransactionStatementPage> statementPage;
+    private ResponseDto<List<LoanInstallment>> loanSchedule;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+        List<TransactionStatement> lines = new ArrayList<>(statementLines);
+        LocalDateTime date = LocalDateTime.of(2024, 1, 1, 9, 0);
+        Money balance = Money.ZERO;
+        for (int i = 0; i < statementLines; i++) {
+            TransactionStatement line = new TransactionStatement((long) i + 1, date.plusHours(i), TransactionType.DEPOSIT, Money.ofMinor(12_345L + i));
+            balance = balance.plus(line.getAmount());
+            line.setBalanceAfterTransaction(balance);
+            lines.add(line);
+        }
+        statementPage = ok(new TransactionStatementPage(lines, Money.ZERO, balance, "MjAyNC0wMS0wMVQwOTowMHwyMA"),
+                "Transaction statement generated successfully").getBody();
+
+        Loan loan = new Loan();
+        loan.setId(7L);
+        loan.setLoanAmount(Money.ofMajor(250_000));
+        loan.setInterestRate(BigDecimal.TEN);
+        loan.setTenure(36);
+        loan.setStatus(LoanStatus.APPROVED);
+        Schedule schedule = AmortizationCalculator.generate(RepaymentMethod.REDUCING_BALANCE,
+                loan.getLoanAmount().getMinorUnits(), AmortizationCalculator.toPartsPerMillion(loan.getInterestRate()), loan.getTenure());
+        List<LoanInstallment> installments = new ArrayList<>(schedule.size());
+        for (int i = 0; i < schedule.size(); i++) {
+            installments.add(new LoanInstallment((long) i + 1, loan, i + 1, LocalDate.of(2024, 1, 1).plusMonths(i + 1L),
+                    Money.ofMinor(schedule.principalDue(i)), Money.ofMinor(schedule.interestDue(i)),
+                    Money.ofMinor(schedule.totalDue(i)), Money.ofMinor(schedule.balanceAfter(i))));
+        }
+        loanSchedule = ok((List<LoanInstallment>) installments, "Loan schedule fetched successfully").getBody();
+    }
+
+    @Benchmark
+    public byte[] statementPage() throws Exception {
+        return objectMapper.writeValueAsBytes(statementPage);
+    }
+
+    @Benchmark
+    public byte[] loanSchedule() throws Exception {
+        return objectMapper.writeValueAsBytes(loanSchedule);
+    }
+}
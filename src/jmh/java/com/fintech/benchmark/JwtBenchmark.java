@@ -0,0 +1,54 @@
+package com.fintech.benchmark;
+
+import com.fintech.model.UsersAccount;
+import com.fintech.model.enums.AppStatus;
+import com.fintech.service.JWTServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue at login and the single parse the authentication filter does on every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+    private JWTServiceImpl jwtService;
+    private UsersAccount usersAccount;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JWTServiceImpl();
+        usersAccount = UsersAccount.builder().id(42L).email("benchmark@fintech.com").accountStatus(AppStatus.COMPLETED).build();
+        token = jwtService.generateToken(usersAccount);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(usersAccount);
+    }
+
+    @Benchmark
+    public Object parseToken() {
+        return jwtService.parseToken(token).orElseThrow();
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token, usersAccount);
+    }
+}
@@ -0,0 +1,127 @@
+package com.fintech.benchmark;
+
+import com.fintech.model.Money;
+import com.fintech.model.enums.RepaymentMethod;
+import com.fintech.service.LoanService;
+import com.fintech.util.AmortizationCalculator;
+import com.fintech.util.AmortizationCalculator.Schedule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pricing done for every loan application: the interest rate band and the total repayable, which
+ * comes from the installment schedule. The BigDecimal variant works out the same schedule, installment by
+ * installment with the same rounding, in BigDecimal amounts at scale 2, so the two differ only in how the
+ * money is held; setUp checks that they agree to the cent. Run with -prof gc to see the allocation per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoanCalculationBenchmark {
+    private static final BigDecimal ZERO = BigDecimal.ZERO.setScale(2);
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    @Param({"5000.00", "250000.00"})
+    private String loanAmount;
+
+    @Param({"6", "36"})
+    private int tenure;
+
+    @Param({"FLAT", "REDUCING_BALANCE"})
+    private RepaymentMethod repaymentMethod;
+
+    private LoanService loanService;
+    private Money amount;
+    private BigDecimal decimalAmount;
+    private Schedule schedule;
+    private BigDecimal[] decimalInterestDue;
+
+    @Setup
+    public void setUp() {
+        // Neither calculation touches the repositories
+        loanService = new LoanService(null, null, null);
+        amount = Money.of(new BigDecimal(loanAmount));
+        decimalAmount = new BigDecimal(loanAmount);
+        schedule = new Schedule(tenure);
+        decimalInterestDue = new BigDecimal[tenure];
+        BigDecimal total = totalAmountBigDecimal();
+        if (total.compareTo(totalAmount().toBigDecimal()) != 0) {
+            throw new IllegalStateException("BigDecimal total " + total + " differs from " + totalAmount());
+        }
+    }
+
+    @Benchmark
+    public BigDecimal calculateInterestRate() {
+        return loanService.calculateInterestRate(amount, tenure);
+    }
+
+    @Benchmark
+    public Money totalAmount() {
+        BigDecimal interestRate = loanService.calculateInterestRate(amount, tenure);
+        AmortizationCalculator.generate(repaymentMethod, amount.getMinorUnits(),
+                AmortizationCalculator.toPartsPerMillion(interestRate), tenure, schedule);
+        return amount.plus(Money.ofMinor(schedule.totalInterest()));
+    }
+
+    @Benchmark
+    public BigDecimal totalAmountBigDecimal() {
+        BigDecimal interestRate = loanService.calculateInterestRate(amount, tenure);
+        // The rate as the schedule sees it, a whole number of parts per million
+        BigDecimal rate = BigDecimal.valueOf(AmortizationCalculator.toPartsPerMillion(interestRate), 4);
+        if (repaymentMethod == RepaymentMethod.REDUCING_BALANCE) {
+            reducingBalance(rate);
+        } else {
+            flat(rate);
+        }
+        BigDecimal totalInterest = BigDecimal.ZERO;
+        for (BigDecimal interest : decimalInterestDue) {
+            totalInterest = totalInterest.add(interest);
+        }
+        return decimalAmount.add(totalInterest);
+    }
+
+    private void flat(BigDecimal rate) {
+        BigDecimal totalInterest = decimalAmount.multiply(rate).divide(HUNDRED, 2, RoundingMode.HALF_UP);
+        BigDecimal months = BigDecimal.valueOf(tenure);
+        BigDecimal principalPart = decimalAmount.divide(months, 2, RoundingMode.DOWN);
+        BigDecimal interestPart = totalInterest.divide(months, 2, RoundingMode.DOWN);
+        BigDecimal balance = decimalAmount;
+        for (int i = 0; i < tenure; i++) {
+            boolean last = i == tenure - 1;
+            BigDecimal principalDue = last ? balance : principalPart;
+            decimalInterestDue[i] = last ? totalInterest.subtract(interestPart.multiply(BigDecimal.valueOf(tenure - 1L))) : interestPart;
+            balance = balance.subtract(principalDue);
+        }
+    }
+
+    private void reducingBalance(BigDecimal rate) {
+        BigDecimal monthlyDivisor = HUNDRED.multiply(BigDecimal.valueOf(tenure));
+        BigDecimal monthlyRate = rate.divide(monthlyDivisor, MathContext.DECIMAL64);
+        BigDecimal installment = decimalAmount.multiply(monthlyRate).divide(BigDecimal.ONE.subtract(
+                BigDecimal.ONE.divide(BigDecimal.ONE.add(monthlyRate).pow(tenure), MathContext.DECIMAL64)), 2, RoundingMode.HALF_UP);
+        BigDecimal balance = decimalAmount;
+        for (int i = 0; i < tenure; i++) {
+            BigDecimal interestDue = balance.multiply(rate).divide(monthlyDivisor, 2, RoundingMode.HALF_UP);
+            BigDecimal principalDue = i == tenure - 1 ? balance : balance.min(installment.subtract(interestDue).max(ZERO));
+            decimalInterestDue[i] = interestDue;
+            balance = balance.subtract(principalDue);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.fintech.benchmark;
+
+import com.fintech.dto.ResponseDto;
+import com.fintech.dto.response.TransactionStatement;
+import com.fintech.dto.response.TransactionStatementPage;
+import com.fintech.model.Money;
+import com.fintech.model.enums.TransactionType;
+import com.fintech.repository.BalanceCheckpointRepository;
+import com.fintech.repository.TransactionArchiveRepository;
+import com.fintech.repository.TransactionRepository;
+import com.fintech.repository.UserAccountRepository;
+import com.fintech.service.BalanceCheckpointService;
+import com.fintech.service.TransactionArchiveStore;
+import com.fintech.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Walks every page of a synthetic account history through generateTransactionStatementForUser, with
+ * the repositories answering from memory so only the service's own work is measured: cursor handling,
+ * the running balance and building the response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatementBenchmark {
+    private static final Long USER_ID = 1L;
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    @Param({"100", "1000", "10000"})
+    private int historySize;
+
+    @Param({"100", "500"})
+    private int pageSize;
+
+    private TransactionService transactionService;
+    private List<TransactionStatement> history;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        history = new ArrayList<>(historySize);
+        LocalDateTime date = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < historySize; i++) {
+            date = date.plusMinutes(1 + random.nextInt(600));
+            history.add(new TransactionStatement((long) i + 1, date, TYPES[random.nextInt(TYPES.length)],
+                    Money.ofMinor(100 + random.nextInt(1_000_000))));
+        }
+
+        TransactionRepository transactionRepository = Stubs.of(TransactionRepository.class, Map.of(
+                "findStatementPage", args -> page((Long) args[2], (Pageable) args[4]),
+                "sumSignedAmountBetween", args -> BigDecimal.ZERO));
+        UserAccountRepository userAccountRepository = Stubs.of(UserAccountRepository.class, Map.of(
+                "existsById", args -> Boolean.TRUE));
+        BalanceCheckpointRepository balanceCheckpointRepository = Stubs.of(BalanceCheckpointRepository.class, Map.of(
+                "findLatestUpTo", args -> List.of()));
+        // Nothing archived, so every row comes from the repository stub
+        TransactionArchiveStore transactionArchiveStore = new TransactionArchiveStore(Stubs.of(TransactionArchiveRepository.class, Map.of(
+                "findArchivedBefore", args -> null)), null, "archive");
+        BalanceCheckpointService balanceCheckpointService = new BalanceCheckpointService(balanceCheckpointRepository,
+                transactionRepository, transactionArchiveStore, null, 500, 60_000);
+        transactionService = new TransactionService(transactionRepository, null, null, userAccountRepository,
+                null, null, balanceCheckpointService, null, transactionArchiveStore, null, null);
+    }
+
+    // Ids are assigned in date order, so the id alone positions the cursor
+    private List<TransactionStatement> page(Long afterId, Pageable pageable) {
+        int from = (int) Math.min(afterId, history.size());
+        int to = Math.min(from + pageable.getPageSize(), history.size());
+        return new ArrayList<>(history.subList(from, to));
+    }
+
+    @Benchmark
+    public Money fullStatement() {
+        String cursor = null;
+        Money closingBalance;
+        do {
+            ResponseEntity<ResponseDto<TransactionStatementPage>> response =
+                    transactionService.generateTransactionStatementForUser(USER_ID, null, null, cursor, pageSize);
+            TransactionStatementPage page = response.getBody().getData();
+            closingBalance = page.getClosingBalance();
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return closingBalance;
+    }
+}
@@ -0,0 +1,28 @@
+package com.fintech.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Repository stand-ins for benchmarks that drive services without a database. Methods named in the
+ * map answer with the given function; anything else returns null, or false for booleans.
+ */
+final class Stubs {
+    private Stubs() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T of(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                return answer.apply(args);
+            }
+            if (method.getName().equals("toString")) {
+                return type.getSimpleName() + " stub";
+            }
+            return method.getReturnType() == boolean.class ? Boolean.FALSE : null;
+        });
+    }
+}
@@ -0,0 +1,61 @@
+package com.fintech.benchmark;
+
+import com.fintech.model.Money;
+import com.fintech.model.enums.TransactionType;
+import com.fintech.service.VelocityLimitService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The velocity check applyTransaction makes before touching the balance, from several threads at once.
+ * With one account every thread contends for the same lock, as on a single very busy account; with many
+ * the checks hardly ever meet. The limits are set high enough that nothing is rejected.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class VelocityLimitBenchmark {
+    private static final String[] LIMITS = {
+            "WITHDRAWAL:MINUTE:COUNT:1000000000", "WITHDRAWAL:HOUR:COUNT:1000000000", "WITHDRAWAL:DAY:AMOUNT:1000000000000.00",
+            "DEPOSIT:MINUTE:COUNT:1000000000", "DEPOSIT:DAY:AMOUNT:1000000000000.00"};
+    private static final Money AMOUNT = Money.ofMinor(12_345);
+
+    @Param({"1", "1000", "100000"})
+    private int accounts;
+
+    private VelocityLimitService velocityLimitService;
+
+    @Setup
+    public void setUp() {
+        // Loading from the database only happens on application start, so no JdbcTemplate is needed
+        velocityLimitService = new VelocityLimitService(null, new SimpleMeterRegistry(), LIMITS, 1000, 60_000);
+    }
+
+    @Benchmark
+    public void checkWithdrawal() {
+        velocityLimitService.check((long) ThreadLocalRandom.current().nextInt(accounts), TransactionType.WITHDRAWAL, AMOUNT);
+    }
+
+    @Benchmark
+    public void checkTypeWithoutLimits() {
+        velocityLimitService.check((long) ThreadLocalRandom.current().nextInt(accounts), TransactionType.REPAYMENT, AMOUNT);
+    }
+}
@@ -3,28 +3,73 @@ package com.fintech.config;
 import com.fintech.service.AuditLogService;
 import com.fintech.util.SecurityUtil;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.AfterReturning;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.Ordered;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.Order;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Runs outside the @Transactional advice so only committed changes are audited. A call made inside a caller's
+// transaction, such as an idempotent request's, is audited once that transaction commits.
+@Slf4j
 @Aspect
 @Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
 @RequiredArgsConstructor
 public class AuditLogAction {
     private final AuditLogService auditLogService;
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final Map<String, Expression> expressionCache = new ConcurrentHashMap<>();
+
+    @AfterReturning(value = "@annotation(auditable)", returning = "result")
+    public void logAction(JoinPoint joinPoint, Auditable auditable, Object result) {
+        try {
+            MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+            EvaluationContext context = new MethodBasedEvaluationContext(null, signature.getMethod(),
+                    joinPoint.getArgs(), parameterNameDiscoverer);
+            context.setVariable("result", result);
 
-    @AfterReturning(value = "execution(* com.fintech.model.Loan.*.updateLoanStatus(..))", returning = "result")
-    public void logLoanStatusChange(JoinPoint joinPoint, Object result) {
-        // Get method arguments (loan id, new status, etc.)
-        Object[] args = joinPoint.getArgs();
-        Long loanId = (Long) args[0];
-        String newStatus = (String) args[1];
+            String details = evaluate(auditable.details(), context, String.class);
+            Long evaluatedUserId = evaluate(auditable.userId(), context, Long.class);
+            Long userId = evaluatedUserId != null ? evaluatedUserId : SecurityUtil.getCurrentUserId();
+            String evaluatedAdminId = evaluate(auditable.adminId(), context, String.class);
+            String adminId = evaluatedAdminId != null ? evaluatedAdminId : SecurityUtil.getAdminIdFromContext();
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        auditLogService.logAction(auditable.action(), details, userId, adminId);
+                    }
+                });
+            } else {
+                auditLogService.logAction(auditable.action(), details, userId, adminId);
+            }
+        } catch (RuntimeException e) {
+            // Auditing must never fail the business call it describes
+            log.warn("Could not capture audit event {}: {}", auditable.action(), e.getMessage());
+        }
+    }
 
-        // Assuming you have access to the userId and adminId
-        Long userId = SecurityUtil.getCurrentUserId();  // Extract from user context
-        String adminId = SecurityUtil.getAdminIdFromContext();  // Extract from admin context
-        String actionDetails = "Loan ID: " + loanId + " updated to status: " + newStatus;
-        auditLogService.logAction("STATUS_CHANGE", actionDetails, userId, adminId);
+    private <T> T evaluate(String expression, EvaluationContext context, Class<T> type) {
+        if (!StringUtils.hasText(expression)) {
+            return null;
+        }
+        return expressionCache.computeIfAbsent(expression, parser::parseExpression).getValue(context, type);
     }
 }
@@ -0,0 +1,23 @@
+package com.fintech.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a service method whose successful completion is recorded in the audit log.
+ * {@code details}, {@code userId} and {@code adminId} are SpEL expressions evaluated against the
+ * method arguments (by name) and {@code #result}, the returned value.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Auditable {
+    String action();
+
+    String details() default "";
+
+    String userId() default "";
+
+    String adminId() default "";
+}
@@ -0,0 +1,110 @@
+package com.fintech.config;
+
+import com.fintech.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs hashing and verification of the wrapped encoder on a fixed number of threads, so a burst of logins can
+ * only ever take those CPUs and leaves the rest to other requests. Callers wait for their turn behind at most
+ * queue-capacity others; once the queue is full they are refused with a 429 at once rather than piling up.
+ *
+ * Stored hashes are only upgraded to the current strength while nothing is queued, so rehashing never adds to
+ * a backlog; the user is upgraded on a later login instead.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeWaitTimer;
+    private final Timer matchesWaitTimer;
+    private final Counter encodeRejectedCounter;
+    private final Counter matchesRejectedCounter;
+    private final Counter upgradeDeferredCounter;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "password-encoder-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.encodeWaitTimer = meterRegistry.timer("password.encoder.wait", "operation", "encode");
+        this.matchesWaitTimer = meterRegistry.timer("password.encoder.wait", "operation", "matches");
+        this.encodeRejectedCounter = meterRegistry.counter("password.encoder.rejected", "operation", "encode");
+        this.matchesRejectedCounter = meterRegistry.counter("password.encoder.rejected", "operation", "matches");
+        this.upgradeDeferredCounter = meterRegistry.counter("password.encoder.upgrade.deferred");
+        Gauge.builder("password.encoder.queue", executor, pool -> pool.getQueue().size())
+                .description("Hashes and verifications waiting for a password encoder thread")
+                .register(meterRegistry);
+        Gauge.builder("password.encoder.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword), encodeWaitTimer, encodeRejectedCounter);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword), matchesWaitTimer, matchesRejectedCounter);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (!delegate.upgradeEncoding(encodedPassword)) {
+            return false;
+        }
+        if (!executor.getQueue().isEmpty()) {
+            upgradeDeferredCounter.increment();
+            return false;
+        }
+        return true;
+    }
+
+    // Called by Spring when the context closes
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> task, Timer waitTimer, Counter rejectedCounter) {
+        long submittedNanos = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - submittedNanos, TimeUnit.NANOSECONDS);
+                return task.call();
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new TooManyRequestsException("Too many sign-ins are being processed, please try again shortly", RETRY_AFTER_SECONDS);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the password encoder", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.fintech.config;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Instant;
+
+/**
+ * A health check that {@link HealthCheckRefresher} runs in the background, so a probe only reads the
+ * last result and never waits on the database. A result older than the stale limit is reported as
+ * down, since it means the check itself has stopped completing.
+ */
+public abstract class CachedHealthIndicator implements HealthIndicator {
+    private final long staleAfterMs;
+    private volatile Health lastHealth;
+    private volatile long checkedAtMs;
+    private volatile long durationMs;
+
+    protected CachedHealthIndicator(long staleAfterMs) {
+        this.staleAfterMs = staleAfterMs;
+    }
+
+    protected abstract Health check() throws Exception;
+
+    void refresh() {
+        long started = System.currentTimeMillis();
+        Health health;
+        try {
+            health = check();
+        } catch (Exception e) {
+            health = Health.down().withDetail("error", e.getClass().getSimpleName()).build();
+        }
+        durationMs = System.currentTimeMillis() - started;
+        checkedAtMs = System.currentTimeMillis();
+        lastHealth = health;
+    }
+
+    @Override
+    public Health health() {
+        Health health = lastHealth;
+        if (health == null) {
+            return Health.unknown().withDetail("reason", "Not checked yet").build();
+        }
+        long ageMs = System.currentTimeMillis() - checkedAtMs;
+        Health.Builder builder = ageMs > staleAfterMs
+                ? Health.status(Status.DOWN).withDetail("reason", "Check has not completed within " + staleAfterMs + " ms")
+                .withDetail("lastStatus", health.getStatus().getCode())
+                : Health.status(health.getStatus());
+        return builder.withDetails(health.getDetails())
+                .withDetail("checkedAt", Instant.ofEpochMilli(checkedAtMs).toString())
+                .withDetail("ageMs", ageMs)
+                .withDetail("durationMs", durationMs)
+                .build();
+    }
+}
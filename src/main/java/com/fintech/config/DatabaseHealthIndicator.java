@@ -0,0 +1,32 @@
+package com.fintech.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+// Replaces Spring Boot's db indicator, which borrows a pooled connection on every probe
+@Component
+public class DatabaseHealthIndicator extends CachedHealthIndicator {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource dataSource;
+
+    public DatabaseHealthIndicator(DataSource dataSource,
+                                   @Value("${fintech.health.stale-after-ms:30000}") long staleAfterMs) {
+        super(staleAfterMs);
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    protected Health check() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                return Health.down().withDetail("database", "Connection is not valid").build();
+            }
+            return Health.up().withDetail("database", connection.getMetaData().getDatabaseProductName()).build();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.fintech.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every {@link CachedHealthIndicator} on its own thread. The shared @Scheduled thread is not used,
+ * because a long rollup or checkpoint run there would leave the health results stale.
+ */
+@Slf4j
+@Component
+public class HealthCheckRefresher {
+    private final List<CachedHealthIndicator> indicators;
+    private final long refreshIntervalMs;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "health-check-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public HealthCheckRefresher(List<CachedHealthIndicator> indicators,
+                                @Value("${fintech.health.refresh-interval-ms:10000}") long refreshIntervalMs) {
+        this.indicators = indicators;
+        this.refreshIntervalMs = refreshIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor.scheduleWithFixedDelay(this::refreshAll, 0, refreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void refreshAll() {
+        for (CachedHealthIndicator indicator : indicators) {
+            try {
+                indicator.refresh();
+            } catch (RuntimeException e) {
+                // An exception here would cancel the schedule for good
+                log.warn("Health check {} failed", indicator.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,45 @@
+package com.fintech.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Records how many SQL statements and entity loads each request caused, tagged with the matched URI
+ * pattern. Runs ahead of the security filters so token checks that hit the database are included;
+ * work done on other threads, such as streamed statement bodies, is not.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@RequiredArgsConstructor
+public class HibernateRequestMetricsFilter extends OncePerRequestFilter {
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        HibernateRequestStatistics.open();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            HibernateRequestStatistics.Counts counts = HibernateRequestStatistics.close();
+            // Unmatched paths share one tag so scanners cannot blow up the number of series
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            DistributionSummary.builder("hibernate.request.statements").baseUnit("statements").tag("uri", uri)
+                    .register(meterRegistry).record(counts.statements);
+            DistributionSummary.builder("hibernate.request.entity.loads").baseUnit("entities").tag("uri", uri)
+                    .register(meterRegistry).record(counts.entityLoads);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.fintech.config;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * Counts the SQL statements Hibernate prepares and the entities it loads on the current thread while
+ * a count is open, so {@link HibernateRequestMetricsFilter} can record them per request. Hibernate's
+ * own statistics are global, and turning them on costs every session.
+ */
+public class HibernateRequestStatistics implements StatementInspector, PostLoadEventListener, Integrator {
+    private static final ThreadLocal<Counts> COUNTS = new ThreadLocal<>();
+
+    static void open() {
+        COUNTS.set(new Counts());
+    }
+
+    static Counts close() {
+        Counts counts = COUNTS.get();
+        COUNTS.remove();
+        return counts;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Counts counts = COUNTS.get();
+        if (counts != null) {
+            counts.statements++;
+        }
+        return sql;
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        Counts counts = COUNTS.get();
+        if (counts != null) {
+            counts.entityLoads++;
+        }
+    }
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        serviceRegistry.getService(EventListenerRegistry.class).appendListeners(EventType.POST_LOAD, this);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    static class Counts {
+        long statements;
+        long entityLoads;
+    }
+}
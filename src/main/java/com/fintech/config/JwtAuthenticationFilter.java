@@ -1,13 +1,21 @@
 package com.fintech.config;
 
 
+import com.fintech.dto.JwtPrincipal;
+import com.fintech.model.Admin;
+import com.fintech.model.UsersAccount;
+import com.fintech.model.enums.AppStatus;
+import com.fintech.model.enums.Role;
 import com.fintech.service.JWTService;
+import com.fintech.service.TokenRevocationService;
 import com.fintech.service.UserService;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -20,33 +28,61 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JWTService jwtService;
     private final UserService userService;
+    private final TokenRevocationService tokenRevocationService;
+    private final Timer parseTimer;
+    private final Timer userLookupTimer;
+
+    public JwtAuthenticationFilter(JWTService jwtService, UserService userService,
+                                   TokenRevocationService tokenRevocationService, MeterRegistry meterRegistry) {
+        this.jwtService = jwtService;
+        this.userService = userService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.parseTimer = meterRegistry.timer("jwt.filter.parse");
+        this.userLookupTimer = meterRegistry.timer("jwt.filter.user.lookup");
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String userEmail;
         if (StringUtils.isEmpty(authHeader) || !org.apache.commons.lang3.StringUtils.startsWith(authHeader, "Bearer ")) {
             filterChain.doFilter(request, response);
             return;
         }
-        jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
-        if(!StringUtils.containsWhitespace(userEmail) && SecurityContextHolder.getContext().getAuthentication() == null){
-            UserDetails userDetails = userService.userDetailsService().loadUserByUsername(userEmail);
-
-            if(jwtService.isTokenValid(jwt,userDetails)){
-                SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
-                UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(userDetails,null,userDetails.getAuthorities());
-                token.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                securityContext.setAuthentication(token);
-                SecurityContextHolder.setContext(securityContext);
-            }
+        final String jwt = authHeader.substring(7);
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            // Everything needed to authenticate is in the signed claims, so the database is not consulted
+            parseTimer.record(() -> jwtService.parseToken(jwt))
+                    .map(principal -> principal.getId() == null ? loadLegacyPrincipal(principal) : principal)
+                    .filter(principal -> principal.getAccountStatus() != AppStatus.INACTIVE)
+                    .filter(principal -> !tokenRevocationService.isRevoked(principal))
+                    .ifPresent(principal -> {
+                        SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+                        UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+                        token.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                        securityContext.setAuthentication(token);
+                        SecurityContextHolder.setContext(securityContext);
+                    });
         }
         filterChain.doFilter(request,response);
     }
-}
\ No newline at end of file
+
+    // Tokens issued before the principal claims were added still need one lookup until they expire
+    private JwtPrincipal loadLegacyPrincipal(JwtPrincipal principal) {
+        final UserDetails userDetails;
+        try {
+            userDetails = userLookupTimer.record(() -> userService.userDetailsService().loadUserByUsername(principal.getEmail()));
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+        if (userDetails instanceof UsersAccount) {
+            UsersAccount usersAccount = (UsersAccount) userDetails;
+            return new JwtPrincipal(usersAccount.getId(), usersAccount.getEmail(), Role.USER,
+                    usersAccount.getAccountStatus(), principal.getIssuedAt());
+        }
+        Admin admin = (Admin) userDetails;
+        return new JwtPrincipal(admin.getId(), admin.getEmail(), Role.ADMIN, admin.getAccountStatus(), principal.getIssuedAt());
+    }
+}
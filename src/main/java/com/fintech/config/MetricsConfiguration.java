@@ -0,0 +1,34 @@
+package com.fintech.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+public class MetricsConfiguration {
+
+    // Makes @Timed work on service methods; controllers are already timed as http.server.requests
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public HibernateRequestStatistics hibernateRequestStatistics() {
+        return new HibernateRequestStatistics();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateRequestStatisticsCustomizer(HibernateRequestStatistics statistics) {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, statistics);
+            properties.put("hibernate.integrator_provider", (IntegratorProvider) () -> List.of(statistics));
+        };
+    }
+}
@@ -0,0 +1,94 @@
+package com.fintech.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stamps the heartbeat row on the primary and reads it back from the replica on its own thread. The
+ * replica is only used while the stamp it returns is no older than the lag limit, so a stalled or
+ * unreachable replica sends every read back to the primary. Lag is measured against this node's clock.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+    private static final int HEARTBEAT_ID = 1;
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long heartbeatIntervalMs;
+    private final long maxLagMs;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-lag-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile long lagMs = Long.MAX_VALUE;
+    private volatile long checkedAtMs;
+    private boolean replicaReachable = true;  // Only touched on the monitor thread, so failures are logged once
+
+    public ReplicaLagMonitor(DataSource primaryDataSource, DataSource replicaDataSource, long heartbeatIntervalMs, long maxLagMs,
+                             MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+        this.maxLagMs = maxLagMs;
+        Gauge.builder("datasource.replica.lag", this, monitor -> monitor.lagMs == Long.MAX_VALUE ? Double.NaN : monitor.lagMs)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    // The heartbeat table only exists once the schema is in place
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.scheduleWithFixedDelay(this::beat, 0, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isReplicaUsable() {
+        // A check that has stopped completing says nothing about the replica any more
+        return lagMs <= maxLagMs && System.currentTimeMillis() - checkedAtMs <= maxLagMs;
+    }
+
+    private void beat() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            if (primary.update("update replication_heartbeat set beat_at = ? where id = ?", now, HEARTBEAT_ID) == 0) {
+                primary.update("insert into replication_heartbeat (id, beat_at) values (?, ?)", HEARTBEAT_ID, now);
+            }
+        } catch (RuntimeException e) {
+            // Another node may have inserted the row first; the next beat updates it
+            log.debug("Could not write the replication heartbeat", e);
+        }
+        try {
+            LocalDateTime replicated = replica.queryForObject("select beat_at from replication_heartbeat where id = ?",
+                    LocalDateTime.class, HEARTBEAT_ID);
+            lagMs = Math.max(0, Duration.between(replicated, LocalDateTime.now()).toMillis());
+            checkedAtMs = System.currentTimeMillis();
+            if (!replicaReachable) {
+                log.info("Replication heartbeat readable from the replica again, lag {} ms", lagMs);
+                replicaReachable = true;
+            }
+        } catch (RuntimeException e) {
+            lagMs = Long.MAX_VALUE;
+            if (replicaReachable) {
+                log.warn("Could not read the replication heartbeat from the replica, reads stay on the primary: {}", e.getMessage());
+                replicaReachable = false;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
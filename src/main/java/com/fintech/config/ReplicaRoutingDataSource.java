@@ -0,0 +1,77 @@
+package com.fintech.config;
+
+import com.fintech.dto.JwtPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Sends connections for read-only transactions to the replica while {@link ReplicaLagMonitor} reports it
+ * current, and everything else to the primary. A principal whose read-write transaction has just
+ * committed keeps reading from the primary for the pin window, so it sees its own writes. Pins are
+ * held per node. This must sit behind a LazyConnectionDataSourceProxy, so that the read-only flag is
+ * set before a connection is chosen.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    enum Target { PRIMARY, REPLICA }
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final Cache<String, Boolean> pinnedPrincipals;
+    private final Counter primaryRoutes;
+    private final Counter replicaRoutes;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor, long pinWindowMs,
+                                    MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        this.pinnedPrincipals = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(pinWindowMs))
+                .maximumSize(100_000)
+                .build();
+        this.primaryRoutes = meterRegistry.counter("datasource.routing", "target", "primary");
+        this.replicaRoutes = meterRegistry.counter("datasource.routing", "target", "replica");
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String principalKey = currentPrincipalKey();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (principalKey != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        pinnedPrincipals.put(principalKey, Boolean.TRUE);
+                    }
+                });
+            }
+            primaryRoutes.increment();
+            return Target.PRIMARY;
+        }
+        if (!lagMonitor.isReplicaUsable() || (principalKey != null && pinnedPrincipals.getIfPresent(principalKey) != null)) {
+            primaryRoutes.increment();
+            return Target.PRIMARY;
+        }
+        replicaRoutes.increment();
+        return Target.REPLICA;
+    }
+
+    private static String currentPrincipalKey() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof JwtPrincipal)) {
+            return null;
+        }
+        JwtPrincipal principal = (JwtPrincipal) authentication.getPrincipal();
+        return principal.getRole().name() + ":" + principal.getId();
+    }
+}
@@ -2,7 +2,13 @@ package com.fintech.config;
 
 import com.fintech.service.UserService;
 import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -19,22 +25,33 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
 
 
+@Slf4j
 @Configuration
 @EnableWebSecurity
 @RequiredArgsConstructor
 public class SecurityConfiguration {
+    private static final int MAX_BCRYPT_STRENGTH = 16;
+
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final UserService userService;
 
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity httpSecurity) throws Exception {
         httpSecurity
                 .csrf().disable() // Disables CSRF protection
                 .authorizeRequests(authorize -> authorize
                         .antMatchers("/api/auth/**").permitAll()
-                        .antMatchers("/admin/**").hasAuthority("ADMIN") // Require 'USER' authority for /student/**
+                        .requestMatchers(new AndRequestMatcher(EndpointRequest.to(PrometheusScrapeEndpoint.class),
+                                request -> request.getLocalPort() == managementPort)).permitAll() // Scraped without a token, but only on the management port
+                        .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll() // Probes carry no token
+                        .requestMatchers(EndpointRequest.toAnyEndpoint()).hasAuthority("ADMIN")
+                        .antMatchers("/api/admin/**").hasAuthority("ADMIN") // Rebuilds, schedule regeneration and the audit trail are admin-only
                         .antMatchers("/account/**").hasAuthority("USER") // Require 'USER' authority for /student/**
 
                         .anyRequest().authenticated() // Require authentication for all other requests
@@ -47,16 +64,45 @@ public class SecurityConfiguration {
         return httpSecurity.build();
     }
     @Bean
-    public AuthenticationProvider authenticationProvider(){
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder){
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
         authenticationProvider.setUserDetailsService(userService.userDetailsService());
-        authenticationProvider.setPasswordEncoder(passwordEncoder());
+        authenticationProvider.setPasswordEncoder(passwordEncoder);
+        // Hashes below the current strength are rewritten on the next successful login
+        authenticationProvider.setUserDetailsPasswordService(userService.userDetailsPasswordService());
         return authenticationProvider;
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${fintech.password.bcrypt-strength:10}") int minStrength,
+                                           @Value("${fintech.password.bcrypt-target-ms:0}") long targetMs,
+                                           @Value("${fintech.password.threads:0}") int threads,
+                                           @Value("${fintech.password.queue-capacity:32}") int queueCapacity){
+        int strength = bcryptStrength(minStrength, targetMs);
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        log.info("Password hashing uses BCrypt strength {} on {} threads", strength, poolSize);
+        return new BoundedPasswordEncoder(new TimedPasswordEncoder(new BCryptPasswordEncoder(strength), meterRegistry),
+                poolSize, queueCapacity, meterRegistry);
+    }
+
+    // The highest strength, but never below minStrength, whose hash takes at most targetMs on this machine.
+    // Each step doubles the work, so one timed hash at minStrength is enough to tell.
+    private static int bcryptStrength(int minStrength, long targetMs) {
+        if (targetMs <= 0) {
+            return minStrength;
+        }
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(minStrength);
+        encoder.encode("warm-up");
+        long start = System.nanoTime();
+        encoder.encode("calibration");
+        double ms = (System.nanoTime() - start) / 1e6;
+        int strength = minStrength;
+        while (strength < MAX_BCRYPT_STRENGTH && ms * 2 <= targetMs) {
+            strength++;
+            ms *= 2;
+        }
+        return strength;
     }
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration configuration) throws Exception{
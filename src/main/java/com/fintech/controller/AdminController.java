@@ -2,20 +2,29 @@ package com.fintech.controller;
 
 
 import com.fintech.dto.ResponseDto;
+import com.fintech.dto.response.AuditEventPage;
+import com.fintech.dto.response.DailyRollupReport;
+import com.fintech.dto.response.UserAccountSummaryPage;
 import com.fintech.dto.request.DisbursementRequest;
 import com.fintech.dto.request.RepaymentRequest;
 import com.fintech.dto.request.UpdateLoanStatusRequest;
 import com.fintech.model.Loan;
 import com.fintech.model.Transactions;
-import com.fintech.model.UsersAccount;
 import com.fintech.service.AdminService;
+import com.fintech.service.AuditLogService;
+import com.fintech.service.DailyRollupService;
+import com.fintech.service.IdempotencyService;
+import com.fintech.service.LoanScheduleService;
 import com.fintech.service.TransactionService;
 import com.fintech.service.UsersAccountService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -26,6 +35,10 @@ public class AdminController {
     private final AdminService adminService;
     private final TransactionService transactionService;
     private final UsersAccountService usersAccountService;
+    private final IdempotencyService idempotencyService;
+    private final DailyRollupService dailyRollupService;
+    private final LoanScheduleService loanScheduleService;
+    private final AuditLogService auditLogService;
     @PostMapping("/verify-user")
     public  ResponseEntity<ResponseDto<String>> verifyUserAccount(@RequestParam("userId") Long userId,@RequestParam("adminId") Long adminId){
         return adminService.verifyUserAccount(userId, adminId);
@@ -42,18 +55,53 @@ public class AdminController {
     }
 
     @GetMapping("/all-users")
-    public  ResponseEntity<ResponseDto<List<UsersAccount>>> retrieve(){
-        return usersAccountService.retrieve();
+    public  ResponseEntity<ResponseDto<UserAccountSummaryPage>> retrieve(@RequestParam(value = "status", required = false) String status,
+                                                                         @RequestParam(value = "verified", required = false) Boolean verified,
+                                                                         @RequestParam(value = "createdFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+                                                                         @RequestParam(value = "createdTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+                                                                         @RequestParam(value = "cursor", required = false) String cursor,
+                                                                         @RequestParam(value = "size", required = false) Integer size){
+        return usersAccountService.retrieve(status, verified, createdFrom, createdTo, cursor, size);
     }
 
     @PostMapping("/record-disbursement")
-    public  ResponseEntity<ResponseDto<Transactions>> recordDisbursement(@RequestBody DisbursementRequest request) {
-        return transactionService.recordDisbursement(request);
+    public  ResponseEntity<ResponseDto<Transactions>> recordDisbursement(@RequestBody DisbursementRequest request,
+                                                                         @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "record-disbursement", request, () -> transactionService.recordDisbursement(request));
     }
 
     @PostMapping("/record-repayment")
-    public  ResponseEntity<ResponseDto<Transactions>> recordRepayment(@RequestBody RepaymentRequest request) {
-        return transactionService.recordRepayment(request);
+    public  ResponseEntity<ResponseDto<Transactions>> recordRepayment(@RequestBody RepaymentRequest request,
+                                                                      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "record-repayment", request, () -> transactionService.recordRepayment(request));
+    }
+
+    @PostMapping("/loans/regenerate-schedules")
+    public ResponseEntity<ResponseDto<Integer>> regenerateLoanSchedules() {
+        return loanScheduleService.regenerateAllSchedules();
+    }
+
+    @GetMapping("/daily-rollups")
+    public ResponseEntity<ResponseDto<DailyRollupReport>> getDailyRollups(@RequestParam(value = "userId", required = false) Long userId,
+                                                                          @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                          @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return dailyRollupService.getDailyRollups(userId, from, to);
+    }
+
+    @PostMapping("/daily-rollups/rebuild")
+    public ResponseEntity<ResponseDto<String>> rebuildDailyRollups(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                   @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return dailyRollupService.rebuild(from, to);
+    }
+
+    @GetMapping("/audit-events")
+    public ResponseEntity<ResponseDto<AuditEventPage>> getAuditEvents(@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                      @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                      @RequestParam(value = "userId", required = false) Long userId,
+                                                                      @RequestParam(value = "adminId", required = false) String adminId,
+                                                                      @RequestParam(value = "cursor", required = false) String cursor,
+                                                                      @RequestParam(value = "size", required = false) Integer size) {
+        return auditLogService.findEvents(from, to, userId, adminId, cursor, size);
     }
 
 
@@ -16,6 +16,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 @RestController
@@ -35,12 +36,12 @@ public class AuthController {
         return usersAccountService.create(request);
     }
     @PostMapping("/login")
-    public JwtAuthenticationResponse login(@RequestBody LoginRequest request) {
-        return adminService.loginAdmin(request);
+    public JwtAuthenticationResponse login(@RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+        return adminService.loginAdmin(request, httpRequest.getRemoteAddr());
     }
 
     @PostMapping("/login-user")
-    public JwtAuthenticationResponse loginUser(@RequestBody LoginRequest request) {
-        return usersAccountService.loginUser(request);
+    public JwtAuthenticationResponse loginUser(@RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+        return usersAccountService.loginUser(request, httpRequest.getRemoteAddr());
     }
 }
@@ -1,24 +1,46 @@
 package com.fintech.controller;
 
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fintech.dto.ResponseDto;
 import com.fintech.dto.request.ApplyTransactionRequest;
 import com.fintech.dto.request.LoanRequest;
 import com.fintech.dto.request.UpdateLoanStatusRequest;
 import com.fintech.dto.request.UserAccountRequest;
-import com.fintech.dto.response.TransactionStatement;
+import com.fintech.dto.response.BulkTransactionResult;
+import com.fintech.dto.response.BulkTransactionSummary;
+import com.fintech.dto.response.TransactionStatementPage;
 import com.fintech.model.Loan;
+import com.fintech.model.LoanInstallment;
+import com.fintech.model.Money;
 import com.fintech.model.Transactions;
 import com.fintech.model.UsersAccount;
+import com.fintech.service.BulkTransactionService;
+import com.fintech.service.IdempotencyService;
+import com.fintech.service.LoanScheduleService;
 import com.fintech.service.LoanService;
 import com.fintech.service.TransactionService;
 import com.fintech.service.UsersAccountService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
+import static com.fintech.dto.ApiResponse.ok;
+
 @RestController
 @RequestMapping("/api/account")
 @RequiredArgsConstructor
@@ -27,6 +49,10 @@ public class UserAccountController {
     private final UsersAccountService usersAccountService;
     private final TransactionService transactionService;
     private final LoanService loanService;
+    private final BulkTransactionService bulkTransactionService;
+    private final IdempotencyService idempotencyService;
+    private final LoanScheduleService loanScheduleService;
+    private final ObjectMapper objectMapper;
     @PutMapping("/update-user")
     public ResponseEntity<ResponseDto<UsersAccount>> update(@RequestBody UserAccountRequest request,@RequestParam("id") Long id){
         return usersAccountService.update(request, id);
@@ -36,19 +62,77 @@ public class UserAccountController {
     public ResponseEntity<ResponseDto<Loan>> applyForLoan(@RequestBody LoanRequest loanRequest){
         return loanService.applyForLoan(loanRequest);
     }
+    @GetMapping("/fetch-loan-schedule")
+    public ResponseEntity<ResponseDto<List<LoanInstallment>>> getLoanSchedule(@RequestParam("loanId") Long loanId) {
+        return loanScheduleService.getSchedule(loanId);
+    }
+
     @GetMapping("/fetch-loan")
     public  ResponseEntity<ResponseDto<List<Loan>>> getLoanByUserId(@RequestParam("userId") Long userId){
         return loanService.getLoanByUserId(userId);
     }
 
     @PostMapping("/apply-transaction")
-    public  ResponseEntity<ResponseDto<Transactions>> applyTransaction(@RequestBody ApplyTransactionRequest request){
-        return transactionService.applyTransaction(request);
+    public  ResponseEntity<ResponseDto<Transactions>> applyTransaction(@RequestBody ApplyTransactionRequest request,
+                                                                       @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey){
+        return idempotencyService.execute(idempotencyKey, "apply-transaction", request, () -> transactionService.applyTransaction(request));
+    }
+
+    @PostMapping(value = "/apply-transaction/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ResponseDto<List<BulkTransactionResult>>> applyTransactions(@RequestBody List<ApplyTransactionRequest> requests,
+                                                                                      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        List<BulkTransactionResult> results = new ArrayList<>(requests.size());
+        BulkTransactionSummary summary = bulkTransactionService.applyTransactions(requests.iterator(), idempotencyKey, results::addAll);
+        return ok(results, summary.getFailedAt() == null ? "Bulk transactions processed" : "Bulk transactions partly processed");
+    }
+
+    // Newline-delimited JSON is read item by item and answered one result line per item, written as each chunk
+    // commits, so neither the file nor its results are ever held in memory
+    @PostMapping(value = "/apply-transaction/bulk", consumes = "application/x-ndjson")
+    public void applyTransactions(HttpServletRequest request, HttpServletResponse response,
+                                  @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) throws IOException {
+        try (MappingIterator<ApplyTransactionRequest> requests = objectMapper.readerFor(ApplyTransactionRequest.class)
+                .readValues(request.getInputStream())) {
+            bulkTransactionService.applyTransactions(requests, idempotencyKey, results -> {
+                try {
+                    if (!response.isCommitted()) {
+                        response.setContentType("application/x-ndjson");
+                        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+                    }
+                    Writer writer = response.getWriter();
+                    for (BulkTransactionResult result : results) {
+                        writer.write(objectMapper.writeValueAsString(result));
+                        writer.write('\n');
+                    }
+                    response.flushBuffer();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
     }
 
     @GetMapping("/fetch-transaction-statement")
-    public  ResponseEntity<ResponseDto<List<TransactionStatement>>> generateTransactionStatementForUser(@RequestParam("userId") Long userId) {
-        return transactionService.generateTransactionStatementForUser(userId);
+    public  ResponseEntity<ResponseDto<TransactionStatementPage>> generateTransactionStatementForUser(@RequestParam("userId") Long userId,
+                                                                                                   @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                                                   @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                                                   @RequestParam(value = "cursor", required = false) String cursor,
+                                                                                                   @RequestParam(value = "size", required = false) Integer size) {
+        return transactionService.generateTransactionStatementForUser(userId, from, to, cursor, size);
+    }
+
+    @GetMapping("/fetch-transaction-statement/stream")
+    public ResponseEntity<StreamingResponseBody> streamTransactionStatementForUser(@RequestParam("userId") Long userId,
+                                                                                   @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                                   @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                                   @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        return transactionService.streamTransactionStatementForUser(userId, from, to, format);
+    }
+
+    @GetMapping("/balance-as-of")
+    public ResponseEntity<ResponseDto<Money>> getBalanceAsOf(@RequestParam("userId") Long userId,
+                                                                  @RequestParam("asOf") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) {
+        return transactionService.getBalanceAsOf(userId, asOf);
     }
 
 
@@ -0,0 +1,35 @@
+package com.fintech.dto;
+
+import com.fintech.model.enums.AppStatus;
+import com.fintech.model.enums.Role;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The authenticated caller as described by the claims of a verified JWT.
+ */
+@Getter
+@AllArgsConstructor
+public class JwtPrincipal implements AuthenticatedPrincipal {
+    private final Long id;
+    private final String email;
+    private final Role role;
+    private final AppStatus accountStatus;
+    private final Date issuedAt;
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority(role.name()));
+    }
+}
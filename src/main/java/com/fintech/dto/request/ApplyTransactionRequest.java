@@ -1,12 +1,11 @@
 package com.fintech.dto.request;
 
+import com.fintech.model.Money;
 import lombok.Data;
 
-import java.math.BigDecimal;
-
 @Data
 public class ApplyTransactionRequest {
    private Long userId;
    private String transactionType;
-   private BigDecimal amount;
+   private Money amount;
 }
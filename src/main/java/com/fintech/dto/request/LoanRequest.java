@@ -1,12 +1,12 @@
 package com.fintech.dto.request;
 
+import com.fintech.model.Money;
 import lombok.Data;
 
-import java.math.BigDecimal;
-
 @Data
 public class LoanRequest {
     private Long userId;
-    private BigDecimal loanAmount;
+    private Money loanAmount;
     private int tenure;
+    private String repaymentMethod;  // FLAT when not given
 }
@@ -0,0 +1,20 @@
+package com.fintech.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// An audit event as read back from the journal
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditEvent {
+    private Long sequence;
+    private LocalDateTime timestamp;
+    private String actionType;
+    private String details;
+    private Long userId;
+    private String adminId;
+}
@@ -0,0 +1,13 @@
+package com.fintech.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class AuditEventPage {
+    private List<AuditEvent> events;
+    private String nextCursor;  // Null once the whole range has been scanned
+}
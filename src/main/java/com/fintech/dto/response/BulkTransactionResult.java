@@ -0,0 +1,22 @@
+package com.fintech.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkTransactionResult {
+    public static final String APPLIED = "APPLIED";
+    public static final String REJECTED = "REJECTED";
+    public static final String FAILED = "FAILED";  // This item and the rest of the batch were not applied
+
+    private int index;  // Position of the item in the submitted batch
+    private Long userId;
+    private String status;
+    private Long transactionId;
+    private String reason;
+}
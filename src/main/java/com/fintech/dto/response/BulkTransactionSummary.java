@@ -0,0 +1,12 @@
+package com.fintech.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BulkTransactionSummary {
+    private int items;  // Items with a result, including a FAILED marker
+    private int applied;
+    private Integer failedAt;  // Index of the first item not applied because its chunk failed, null if none did
+}
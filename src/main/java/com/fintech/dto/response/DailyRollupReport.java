@@ -0,0 +1,15 @@
+package com.fintech.dto.response;
+
+import com.fintech.model.DailyTransactionRollup;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class DailyRollupReport {
+    private List<DailyTransactionRollup> rollups;
+    private LocalDateTime completeThrough;  // Transactions dated after this are not in the totals yet
+}
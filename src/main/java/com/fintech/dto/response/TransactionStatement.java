@@ -1,15 +1,26 @@
 package com.fintech.dto.response;
 
+import com.fintech.model.Money;
 import com.fintech.model.enums.TransactionType;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 public class TransactionStatement {
+    private Long transactionId;
     private LocalDateTime transactionDate;
     private TransactionType transactionType;
-    private BigDecimal amount;
-    private BigDecimal balanceAfterTransaction;
+    private Money amount;
+    private Money balanceAfterTransaction;
+
+    // Used by the statement queries, the balance is filled in as rows are read in order
+    public TransactionStatement(Long transactionId, LocalDateTime transactionDate, TransactionType transactionType, Money amount) {
+        this.transactionId = transactionId;
+        this.transactionDate = transactionDate;
+        this.transactionType = transactionType;
+        this.amount = amount;
+    }
 }
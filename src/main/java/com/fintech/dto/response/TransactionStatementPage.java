@@ -0,0 +1,16 @@
+package com.fintech.dto.response;
+
+import com.fintech.model.Money;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class TransactionStatementPage {
+    private List<TransactionStatement> transactions;
+    private Money openingBalance;
+    private Money closingBalance;
+    private String nextCursor;  // Null on the last page
+}
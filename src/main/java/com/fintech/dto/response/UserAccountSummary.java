@@ -0,0 +1,22 @@
+package com.fintech.dto.response;
+
+import com.fintech.model.enums.AppStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// The admin listing view of an account, without the password hash, BVN or balance
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserAccountSummary {
+    private Long id;
+    private String fullName;
+    private String email;
+    private String phoneNumber;
+    private AppStatus accountStatus;
+    private boolean verified;
+    private LocalDateTime createdDate;
+}
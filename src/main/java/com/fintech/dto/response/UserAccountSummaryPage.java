@@ -0,0 +1,13 @@
+package com.fintech.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class UserAccountSummaryPage {
+    private List<UserAccountSummary> users;
+    private String nextCursor;  // Null on the last page
+}
@@ -0,0 +1,29 @@
+package com.fintech.dto.response;
+
+import com.fintech.exception.VelocityLimitExceededException;
+import com.fintech.model.enums.TransactionType;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+// The limit a rejected transaction ran into, so clients can tell which one and when to try again
+@Getter
+public class VelocityLimitErrorResponse extends ErrorResponse {
+    private final String reason = "VELOCITY_LIMIT_EXCEEDED";
+    private final TransactionType transactionType;
+    private final String window;
+    private final String measure;
+    private final BigDecimal limit;
+    private final BigDecimal used;
+    private final Long retryAfterSeconds;
+
+    public VelocityLimitErrorResponse(VelocityLimitExceededException ex, int status) {
+        super(ex.getMessage(), status);
+        this.transactionType = ex.getTransactionType();
+        this.window = ex.getWindow();
+        this.measure = ex.getMeasure();
+        this.limit = ex.getLimit();
+        this.used = ex.getUsed();
+        this.retryAfterSeconds = ex.getRetryAfterSeconds();
+    }
+}
@@ -0,0 +1,17 @@
+package com.fintech.event;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+
+/**
+ * Something that happened to a ledger or a loan, published through the outbox once the change that caused it
+ * commits. Events are stored as JSON, so fields can be added but not renamed.
+ */
+public interface DomainEvent {
+    LocalDateTime getOccurredAt();
+
+    // The account or loan the event is about, kept in its own outbox column
+    @JsonIgnore
+    Long getAggregateId();
+}
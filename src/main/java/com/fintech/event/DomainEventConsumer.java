@@ -0,0 +1,15 @@
+package com.fintech.event;
+
+import java.util.List;
+
+/**
+ * Receives the events of the in-process bus. Every consumer bean gets its own thread and is handed batches
+ * in the order the events were committed on this node. Delivery is at least once: events not yet
+ * acknowledged when a node stops are replayed from the outbox, possibly on another node and out of order.
+ */
+public interface DomainEventConsumer {
+    // Names the consumer in metrics and logs
+    String getName();
+
+    void onEvents(List<PublishedEvent> events);
+}
@@ -0,0 +1,29 @@
+package com.fintech.event;
+
+import com.fintech.model.Money;
+import com.fintech.model.enums.RepaymentMethod;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanApplied implements DomainEvent {
+    private Long loanId;
+    private Long userId;
+    private Money loanAmount;
+    private Money totalAmount;
+    private BigDecimal interestRate;
+    private int tenure;
+    private RepaymentMethod repaymentMethod;
+    private LocalDateTime occurredAt;
+
+    @Override
+    public Long getAggregateId() {
+        return loanId;
+    }
+}
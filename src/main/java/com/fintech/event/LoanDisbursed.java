@@ -0,0 +1,25 @@
+package com.fintech.event;
+
+import com.fintech.model.Money;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanDisbursed implements DomainEvent {
+    private Long loanId;
+    private Long userId;
+    private Long transactionId;
+    private Long adminId;
+    private Money amount;
+    private LocalDateTime occurredAt;
+
+    @Override
+    public Long getAggregateId() {
+        return loanId;
+    }
+}
@@ -0,0 +1,26 @@
+package com.fintech.event;
+
+import com.fintech.model.enums.LoanStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Published for every status change, including the ones that also have an event of their own
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanStatusChanged implements DomainEvent {
+    private Long loanId;
+    private Long userId;
+    private LoanStatus previousStatus;
+    private LoanStatus status;
+    private Long adminId;
+    private LocalDateTime occurredAt;
+
+    @Override
+    public Long getAggregateId() {
+        return loanId;
+    }
+}
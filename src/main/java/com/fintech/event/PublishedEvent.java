@@ -0,0 +1,12 @@
+package com.fintech.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// An event together with the id of its outbox row
+@Getter
+@AllArgsConstructor
+public class PublishedEvent {
+    private final long outboxId;
+    private final DomainEvent event;
+}
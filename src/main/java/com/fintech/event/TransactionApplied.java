@@ -0,0 +1,27 @@
+package com.fintech.event;
+
+import com.fintech.model.Money;
+import com.fintech.model.enums.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A ledger row was written and the account balance moved by its amount
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionApplied implements DomainEvent {
+    private Long transactionId;
+    private Long userId;
+    private Long loanId;
+    private TransactionType transactionType;
+    private Money amount;
+    private LocalDateTime occurredAt;
+
+    @Override
+    public Long getAggregateId() {
+        return userId;
+    }
+}
@@ -0,0 +1,16 @@
+package com.fintech.exception;
+
+import lombok.Getter;
+
+// Refused before any work was done because this node is busy or the caller is throttled; answered with 429
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+    private static final long serialVersionUID = -2583360751482306719L;
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
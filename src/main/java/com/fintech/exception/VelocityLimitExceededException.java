@@ -0,0 +1,30 @@
+package com.fintech.exception;
+
+import com.fintech.model.enums.TransactionType;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+// A transaction that would take an account past one of its velocity limits; answered with 429
+@Getter
+public class VelocityLimitExceededException extends RuntimeException {
+    private static final long serialVersionUID = 4385210953370198642L;
+
+    private final TransactionType transactionType;
+    private final String window;
+    private final String measure;
+    private final BigDecimal limit;
+    private final BigDecimal used;
+    private final Long retryAfterSeconds;  // Null when the transaction alone is over the limit
+
+    public VelocityLimitExceededException(TransactionType transactionType, String window, String measure,
+                                          BigDecimal limit, BigDecimal used, Long retryAfterSeconds) {
+        super(transactionType + " " + measure.toLowerCase() + " limit of " + limit + " per " + window.toLowerCase() + " reached");
+        this.transactionType = transactionType;
+        this.window = window;
+        this.measure = measure;
+        this.limit = limit;
+        this.used = used;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -22,17 +22,17 @@ import java.util.Set;
 
 @Entity
 //@Indexed
-@Table(name = "admin")
+@Table(name = "admin", uniqueConstraints = @UniqueConstraint(name = "uk_admin_email", columnNames = "email"))
 @Setter
 @Getter
 @AllArgsConstructor
 @NoArgsConstructor
 @SuperBuilder
-@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonIgnoreProperties(value = {"hibernateLazyInitializer", "handler"}, ignoreUnknown = true)
 @SequenceGenerator(
         name = "admin_sequence_gen",
         sequenceName = "admin_seq",
-        allocationSize = 1)
+        allocationSize = 50)
 public class Admin implements UserDetails {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "admin_sequence_gen")
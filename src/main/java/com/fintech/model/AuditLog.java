@@ -18,14 +18,10 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @SuperBuilder
 @JsonIgnoreProperties(ignoreUnknown = true)
-@SequenceGenerator(
-        name = "audit_log_sequence_gen",
-        sequenceName = "audit_log_seq",
-        allocationSize = 1)
 public class AuditLog {
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_log_sequence_gen")
-
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
     private String actionType;  // Action type (e.g., "CREATE", "UPDATE", "STATUS_CHANGE")
     private String details;     // Details of the action (e.g., loan amount, user info)
     private LocalDateTime timestamp;  // Timestamp of the action
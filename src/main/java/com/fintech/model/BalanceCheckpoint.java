@@ -0,0 +1,33 @@
+package com.fintech.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "balance_checkpoint",
+        indexes = {@Index(name = "idx_balance_checkpoint_position", columnList = "user_id, transaction_date, transaction_id"),
+                @Index(name = "idx_balance_checkpoint_created_date", columnList = "created_date")})
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BalanceCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    @Column(name = "transaction_id", nullable = false)
+    private Long transactionId;  // Last ledger row covered by this checkpoint
+    @Column(name = "transaction_date", nullable = false)
+    private LocalDateTime transactionDate;
+    @Column(name = "balance", nullable = false)
+    private Money balance;  // Net effect of every row up to and including transactionId
+    @Column(name = "created_date")
+    private LocalDateTime createdDate;
+}
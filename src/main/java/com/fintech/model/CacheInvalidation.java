@@ -0,0 +1,27 @@
+package com.fintech.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "cache_invalidation", indexes = @Index(name = "idx_cache_invalidation_created_date", columnList = "created_date"))
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheInvalidation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;  // Nodes read forward from the last id they applied
+    @Column(name = "cache_name", nullable = false)
+    private String cacheName;
+    @Column(name = "entry_key", nullable = false)
+    private String entryKey;
+    @Column(name = "created_date", nullable = false)
+    private LocalDateTime createdDate;
+}
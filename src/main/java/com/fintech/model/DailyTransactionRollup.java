@@ -0,0 +1,36 @@
+package com.fintech.model;
+
+import com.fintech.model.enums.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "daily_transaction_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_daily_rollup", columnNames = {"user_id", "rollup_date", "transaction_type"}))
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailyTransactionRollup {
+    public static final long PLATFORM_USER_ID = 0L;  // Totals across every account
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    @Column(name = "transaction_type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private TransactionType transactionType;
+    @Column(name = "total_amount", nullable = false)
+    private Money totalAmount;
+    @Column(name = "transaction_count", nullable = false)
+    private long transactionCount;
+}
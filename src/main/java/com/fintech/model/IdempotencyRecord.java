@@ -0,0 +1,50 @@
+package com.fintech.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_record", indexes = @Index(name = "idx_idempotency_record_created_date", columnList = "created_date"))
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class IdempotencyRecord implements Persistable<String> {
+    @Id
+    @Column(name = "idempotency_key")
+    private String idempotencyKey;  // Endpoint scope plus the client supplied key
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+    @Lob
+    @Column(name = "response_body")
+    private String responseBody;
+    @Column(name = "response_status")
+    private Integer responseStatus;
+    @Column(name = "created_date")
+    private LocalDateTime createdDate;
+    @Transient
+    private boolean persisted;
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    // Lets save() insert straight away instead of merging, so a duplicate key fails on the insert itself
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+}
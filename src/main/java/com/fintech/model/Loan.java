@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fintech.model.UsersAccount;
 import com.fintech.model.enums.LoanStatus;
+import com.fintech.model.enums.RepaymentMethod;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
 
@@ -13,23 +14,27 @@ import java.time.LocalDateTime;
 
 @Entity
 //@Indexed
-@Table(name = "loan")
+@Table(name = "loan",
+        indexes = {
+                @Index(name = "idx_loan_user_status", columnList = "user_id, status"),
+                @Index(name = "idx_loan_status", columnList = "status")
+        })
 @Setter
 @Getter
 @AllArgsConstructor
 @NoArgsConstructor
 @SuperBuilder
-@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonIgnoreProperties(value = {"hibernateLazyInitializer", "handler"}, ignoreUnknown = true)
 @SequenceGenerator(
         name = "loan_sequence_gen",
         sequenceName = "loan_seq",
-        allocationSize = 1)
+        allocationSize = 50)
 public class Loan {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_sequence_gen")
     private Long id;
     @Column(name = "laon_amount")
-    private BigDecimal loanAmount;
+    private Money loanAmount;
     @Column(name = "tenure")
     @Builder.Default
     private int tenure = 0;  // Tenure in months
@@ -38,16 +43,21 @@ public class Loan {
     @Column(name = "narration")
     private String narration;
     @Column(name = "total_amount")
-    private BigDecimal totalAmount;  // Loan amount + interest
+    private Money totalAmount;  // Loan amount + interest
     @Column(name = "disburstment_date")
     private LocalDateTime disbursementDate;
+    @Column(name = "status")
     @Enumerated(EnumType.STRING)
     private LoanStatus status = LoanStatus.PENDING;
-    @ManyToOne
+    @Enumerated(EnumType.STRING)
+    @Column(name = "repayment_method")
+    @Builder.Default
+    private RepaymentMethod repaymentMethod = RepaymentMethod.FLAT;
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private UsersAccount user;
     @JsonIgnore
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "admin_id")  // Foreign key to Admin table
     private Admin admin;  // Admin who approved or rejected the loa
     @Column(name = "created_date")
@@ -55,7 +65,7 @@ public class Loan {
     @Column(name = "updated_date")
     private LocalDateTime updatedDate;
     @JsonIgnore
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "verified_by", referencedColumnName = "id")
     private Admin verifiedBy;
 }
@@ -0,0 +1,43 @@
+package com.fintech.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "loan_installment",
+        uniqueConstraints = @UniqueConstraint(name = "uk_loan_installment", columnNames = {"loan_id", "installment_number"}))
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@SequenceGenerator(
+        name = "loan_installment_sequence_gen",
+        sequenceName = "loan_installment_seq",
+        allocationSize = 50)
+public class LoanInstallment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_installment_sequence_gen")
+    private Long id;
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "loan_id", nullable = false)
+    private Loan loan;
+    @Column(name = "installment_number", nullable = false)
+    private int installmentNumber;  // 1 based
+    @Column(name = "due_date", nullable = false)
+    private LocalDate dueDate;
+    @Column(name = "principal_due", nullable = false)
+    private Money principalDue;
+    @Column(name = "interest_due", nullable = false)
+    private Money interestDue;
+    @Column(name = "total_due", nullable = false)
+    private Money totalDue;
+    @Column(name = "balance_after", nullable = false)
+    private Money balanceAfter;  // Principal still outstanding once this installment is paid
+}
@@ -0,0 +1,39 @@
+package com.fintech.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// A domain event written in the same transaction as the change it describes; published_date is set once every consumer has had it
+@Entity
+@Table(name = "outbox_event",
+        indexes = @Index(name = "idx_outbox_event_unpublished", columnList = "published_date, claimed_date"))
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@SequenceGenerator(
+        name = "outbox_event_sequence_gen",
+        sequenceName = "outbox_event_seq",
+        allocationSize = 50)
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_sequence_gen")
+    private Long id;
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+    @Column(name = "payload", nullable = false, length = 4000)
+    private String payload;
+    @Column(name = "created_date", nullable = false)
+    private LocalDateTime createdDate;
+    @Column(name = "claimed_date", nullable = false)
+    private LocalDateTime claimedDate;  // When a node last took the event onto its bus
+    @Column(name = "published_date")
+    private LocalDateTime publishedDate;
+}
@@ -0,0 +1,27 @@
+package com.fintech.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "principal_revocation", indexes = @Index(name = "idx_principal_revocation_revoked_at", columnList = "revoked_at"))
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PrincipalRevocation {
+    @Id
+    @Column(name = "principal_key")
+    private String principalKey;  // Role and id, e.g. "USER:42"
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;  // Tokens issued at or before this instant are rejected
+}
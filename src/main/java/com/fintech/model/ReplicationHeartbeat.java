@@ -0,0 +1,27 @@
+package com.fintech.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+// One row, stamped on the primary and read back from the replica to measure replication lag
+@Entity
+@Table(name = "replication_heartbeat")
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReplicationHeartbeat {
+    @Id
+    @Column(name = "id")
+    private Integer id;
+    @Column(name = "beat_at", nullable = false)
+    private LocalDateTime beatAt;
+}
@@ -0,0 +1,30 @@
+package com.fintech.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "rollup_watermark")
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class RollupWatermark {
+    @Id
+    @Column(name = "name")
+    private String name;
+    @Column(name = "last_transaction_date", nullable = false)
+    private LocalDateTime lastTransactionDate;  // Every ledger row up to and including this position is rolled up
+    @Column(name = "last_transaction_id", nullable = false)
+    private Long lastTransactionId;
+    @Column(name = "updated_date")
+    private LocalDateTime updatedDate;
+}
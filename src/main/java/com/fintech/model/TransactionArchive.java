@@ -0,0 +1,43 @@
+package com.fintech.model;
+
+import com.fintech.model.enums.ArchiveStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// One archived month of the transactions table
+@Entity
+@Table(name = "transaction_archive")
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionArchive {
+    @Id
+    @Column(name = "period_start")
+    private LocalDate periodStart;
+    @Column(name = "period_end", nullable = false)
+    private LocalDate periodEnd;  // Exclusive
+    @Column(name = "partition_name", nullable = false)
+    private String partitionName;
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ArchiveStatus status;
+    @Column(name = "file_name")
+    private String fileName;
+    @Column(name = "sha256", length = 64)
+    private String sha256;
+    @Column(name = "row_count")
+    private Long rowCount;
+    @Column(name = "claimed_date", nullable = false)
+    private LocalDateTime claimedDate;
+    @Column(name = "archived_date")
+    private LocalDateTime archivedDate;
+    @Column(name = "dropped_date")
+    private LocalDateTime droppedDate;
+}
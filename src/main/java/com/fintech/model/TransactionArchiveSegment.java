@@ -0,0 +1,40 @@
+package com.fintech.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Where one account's rows for an archived month sit in the archive file: a gzip member of its own
+@Entity
+@Table(name = "transaction_archive_segment",
+        indexes = @Index(name = "idx_transaction_archive_segment_user", columnList = "user_id, first_transaction_date"))
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionArchiveSegment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+    @Column(name = "user_id")
+    private Long userId;
+    @Column(name = "byte_offset", nullable = false)
+    private Long byteOffset;
+    @Column(name = "byte_length", nullable = false)
+    private Integer byteLength;
+    @Column(name = "row_count", nullable = false)
+    private Integer rowCount;
+    @Column(name = "first_transaction_date", nullable = false)
+    private LocalDateTime firstTransactionDate;
+    @Column(name = "last_transaction_date", nullable = false)
+    private LocalDateTime lastTransactionDate;
+    @Column(name = "last_transaction_id", nullable = false)
+    private Long lastTransactionId;
+}
@@ -13,28 +13,31 @@ import lombok.Setter;
 import lombok.experimental.SuperBuilder;
 
 import javax.persistence.*;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
 //@Indexed
-@Table(name = "transactions")
+@Table(name = "transactions",
+        indexes = {
+                @Index(name = "idx_transactions_user_date", columnList = "user_id, transaction_date, id"),
+                @Index(name = "idx_transactions_date", columnList = "transaction_date, id")
+        })
 @Setter
 @Getter
 @AllArgsConstructor
 @NoArgsConstructor
 @SuperBuilder
-@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonIgnoreProperties(value = {"hibernateLazyInitializer", "handler"}, ignoreUnknown = true)
 @SequenceGenerator(
         name = "transactions_sequence_gen",
         sequenceName = "transactions_seq",
-        allocationSize = 1)
+        allocationSize = 50)
 public class Transactions {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_sequence_gen")
     private Long id;
     @Column(name = "amount")
-    private BigDecimal amount;
+    private Money amount;
     @Column(name = "transaction_type")
     @Enumerated(EnumType.STRING)
     private TransactionType transactionType;
@@ -43,14 +46,14 @@ public class Transactions {
     @Column(name = "app_status")
     @Enumerated(EnumType.STRING)
     private AppStatus status = AppStatus.PENDING;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private UsersAccount user;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "loan_id")
     private Loan loan;
     @JsonIgnore
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "verified_by", referencedColumnName = "id")
     private Admin verifiedBy;
 
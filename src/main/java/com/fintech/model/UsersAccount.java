@@ -11,7 +11,6 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import javax.persistence.*;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Date;
@@ -19,17 +18,22 @@ import java.util.List;
 
 @Entity
 //@Indexed
-@Table(name = "users_account")
+@Table(name = "users_account",
+        uniqueConstraints = @UniqueConstraint(name = "uk_users_account_email", columnNames = "email"),
+        indexes = {
+                @Index(name = "idx_users_account_status_verified", columnList = "account_status, is_verified, id"),
+                @Index(name = "idx_users_account_created_date", columnList = "created_date, id")
+        })
 @Setter
 @Getter
 @AllArgsConstructor
 @NoArgsConstructor
 @SuperBuilder
-@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonIgnoreProperties(value = {"hibernateLazyInitializer", "handler"}, ignoreUnknown = true)
 @SequenceGenerator(
         name = "users_account_sequence_gen",
         sequenceName = "users_account_seq",
-        allocationSize = 1)
+        allocationSize = 50)
 public class UsersAccount implements UserDetails {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_account_sequence_gen")
@@ -49,13 +53,15 @@ public class UsersAccount implements UserDetails {
     private String address;
     @Column(name = "gender")
     private String gender;
-    @Column(name = "account_balance")
+    // Only written through the conditional updates in UserAccountRepository, never by saving the entity
+    @Column(name = "account_balance", updatable = false)
     @Builder.Default
-    private BigDecimal accountBalance = BigDecimal.ZERO;
+    private Money accountBalance = Money.ZERO;
     @Column(name = "bvn")
     private String bvn;
     @Column(name = "is_verified")
     private boolean isVerified = false;
+    @Column(name = "account_status")
     @Enumerated(EnumType.STRING)
     private AppStatus accountStatus = AppStatus.PENDING;
     @JsonIgnore
@@ -70,7 +76,7 @@ public class UsersAccount implements UserDetails {
     @Column(name = "updated_date")
     private LocalDateTime updatedDate;
     @JsonIgnore
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "verified_by", referencedColumnName = "id")
     private Admin verifiedBy;
     @Override
@@ -0,0 +1,7 @@
+package com.fintech.model.enums;
+
+public enum ArchiveStatus {
+    PENDING,   // Claimed by a node that is writing the file
+    ARCHIVED,  // File written and verified; reads for the month come from it
+    DROPPED    // The month's partition has been dropped from transactions
+}
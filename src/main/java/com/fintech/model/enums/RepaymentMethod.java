@@ -0,0 +1,12 @@
+package com.fintech.model.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum RepaymentMethod {
+    FLAT("FLAT"),  // interestRate is charged once on the original principal and spread evenly over the tenure
+    REDUCING_BALANCE("REDUCING_BALANCE");  // interestRate / tenure is charged each month on the outstanding principal
+    private final String repaymentMethod;
+}
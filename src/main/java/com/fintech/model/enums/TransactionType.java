@@ -3,6 +3,9 @@ package com.fintech.model.enums;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 @Getter
 @AllArgsConstructor
 public enum TransactionType {
@@ -11,4 +14,11 @@ public enum TransactionType {
   DEPOSIT("DEPOSIT"),
     REPAYMENT("REPAYMENT");
     private final String transactionType;
+
+    // Types that add to the account balance; the rest are taken out of it
+    public static final Set<TransactionType> CREDITS = EnumSet.of(DEPOSIT, DISBURSEMENT);
+
+    public boolean isCredit() {
+        return CREDITS.contains(this);
+    }
 }
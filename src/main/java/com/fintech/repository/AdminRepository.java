@@ -1,8 +1,14 @@
 package com.fintech.repository;
 
 import com.fintech.model.Admin;
+import com.fintech.service.CacheInvalidationService;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,4 +16,14 @@ import java.util.Optional;
 @Repository
 public interface AdminRepository extends JpaRepository<Admin,Long> {
 Optional<Admin> findByEmail (String email);
+
+    // Shared by every caller on this node, so it must not be changed; see AccountLookupService
+    @Cacheable(cacheNames = CacheInvalidationService.ADMINS, key = "#p0", unless = "#result == null")
+    @Query("select a from Admin a where a.id = :id")
+    Optional<Admin> findCachedById(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("update Admin a set a.password = :password where a.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
 }
@@ -0,0 +1,27 @@
+package com.fintech.repository;
+
+import com.fintech.model.BalanceCheckpoint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, Long> {
+    // Checkpoints at or before the given ledger position, newest first
+    @Query("select c from BalanceCheckpoint c where c.userId = :userId " +
+            "and (c.transactionDate < :date or (c.transactionDate = :date and c.transactionId <= :id)) " +
+            "order by c.transactionDate desc, c.transactionId desc")
+    List<BalanceCheckpoint> findLatestUpTo(@Param("userId") Long userId, @Param("date") LocalDateTime date,
+                                           @Param("id") Long id, Pageable pageable);
+
+    Optional<BalanceCheckpoint> findFirstByUserIdOrderByTransactionDateDescTransactionIdDesc(Long userId);
+
+    @Query("select max(c.createdDate) from BalanceCheckpoint c")
+    LocalDateTime findLatestCreatedDate();
+}
@@ -0,0 +1,25 @@
+package com.fintech.repository;
+
+import com.fintech.model.CacheInvalidation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CacheInvalidationRepository extends JpaRepository<CacheInvalidation, Long> {
+    List<CacheInvalidation> findAllByIdGreaterThanOrderById(Long id);
+
+    @Query("select coalesce(max(c.id), 0) from CacheInvalidation c")
+    Long findLatestId();
+
+    @Transactional
+    @Modifying
+    @Query("delete from CacheInvalidation c where c.createdDate < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
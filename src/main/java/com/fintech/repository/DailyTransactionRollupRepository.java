@@ -0,0 +1,13 @@
+package com.fintech.repository;
+
+import com.fintech.model.DailyTransactionRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyTransactionRollupRepository extends JpaRepository<DailyTransactionRollup, Long> {
+    List<DailyTransactionRollup> findAllByUserIdAndRollupDateBetweenOrderByRollupDateAscTransactionTypeAsc(Long userId, LocalDate from, LocalDate to);
+}
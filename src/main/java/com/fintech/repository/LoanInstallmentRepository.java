@@ -0,0 +1,22 @@
+package com.fintech.repository;
+
+import com.fintech.model.LoanInstallment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LoanInstallmentRepository extends JpaRepository<LoanInstallment, Long> {
+    // Read in the order of the (loan_id, installment_number) unique key
+    @Query("select i from LoanInstallment i where i.loan.id = :loanId order by i.installmentNumber")
+    List<LoanInstallment> findAllByLoan_IdOrderByInstallmentNumber(@Param("loanId") Long loanId);
+
+    @Modifying
+    @Query("delete from LoanInstallment i where i.loan.id in :loanIds")
+    int deleteAllByLoanIds(@Param("loanIds") Collection<Long> loanIds);
+}
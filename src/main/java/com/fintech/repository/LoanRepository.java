@@ -3,9 +3,15 @@ package com.fintech.repository;
 import com.fintech.model.Loan;
 import com.fintech.model.UsersAccount;
 import com.fintech.model.enums.LoanStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +19,22 @@ import java.util.Optional;
 public interface LoanRepository extends JpaRepository<Loan, Long> {
 
     boolean existsByUserAndStatusIn(UsersAccount user, List<LoanStatus> statuses);
-    List<Loan> findAllByUser_Id(Long userId);
+    // The user goes out with each loan in the response, so it is fetched in the same query. The filter is on the
+    // loan's own user_id, which the (user_id, status) index covers, rather than on the joined account
+    @Query("select l from Loan l join fetch l.user where l.user.id = :userId")
+    List<Loan> findAllByUser_Id(@Param("userId") Long userId);
+
+    @EntityGraph(attributePaths = "user")
     List<Loan> findAllByStatus(LoanStatus status);
+
+    @EntityGraph(attributePaths = "user")
+    Optional<Loan> findWithUserById(Long id);
+
+    @Query("select l.id from Loan l where l.status in :statuses order by l.id")
+    List<Long> findIdsByStatusIn(@Param("statuses") Collection<LoanStatus> statuses);
+
+    // Answered from the primary key index, so it stays cheap however large the loan book gets
+    @Query("select max(l.id) from Loan l")
+    @QueryHints(@QueryHint(name = "javax.persistence.query.timeout", value = "2000"))
+    Long findLatestId();
 }
@@ -0,0 +1,36 @@
+package com.fintech.repository;
+
+import com.fintech.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    @Query("select e from OutboxEvent e where e.publishedDate is null and e.claimedDate < :claimedBefore order by e.id")
+    List<OutboxEvent> findUnpublished(@Param("claimedBefore") LocalDateTime claimedBefore, Pageable pageable);
+
+    // Succeeds for only one node when several find the same stale event
+    @Transactional
+    @Modifying
+    @Query("update OutboxEvent e set e.claimedDate = :now where e.id = :id and e.publishedDate is null and e.claimedDate < :claimedBefore")
+    int reclaim(@Param("id") Long id, @Param("claimedBefore") LocalDateTime claimedBefore, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxEvent e set e.publishedDate = :now where e.id in :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxEvent e where e.publishedDate < :cutoff")
+    int deletePublishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,13 @@
+package com.fintech.repository;
+
+import com.fintech.model.PrincipalRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PrincipalRevocationRepository extends JpaRepository<PrincipalRevocation, String> {
+    List<PrincipalRevocation> findAllByRevokedAtAfter(LocalDateTime revokedAt);
+}
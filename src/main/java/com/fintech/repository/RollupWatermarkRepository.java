@@ -0,0 +1,19 @@
+package com.fintech.repository;
+
+import com.fintech.model.RollupWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface RollupWatermarkRepository extends JpaRepository<RollupWatermark, String> {
+    // Held for the whole catch-up or rebuild transaction, so only one node rolls up a given range
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select w from RollupWatermark w where w.name = :name")
+    Optional<RollupWatermark> findForUpdate(@Param("name") String name);
+}
@@ -0,0 +1,20 @@
+package com.fintech.repository;
+
+import com.fintech.model.TransactionArchive;
+import com.fintech.model.enums.ArchiveStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TransactionArchiveRepository extends JpaRepository<TransactionArchive, LocalDate> {
+    // Months are archived oldest first, so everything before the latest archived month end is archived
+    @Query("select max(a.periodEnd) from TransactionArchive a where a.status <> com.fintech.model.enums.ArchiveStatus.PENDING")
+    LocalDate findArchivedBefore();
+
+    List<TransactionArchive> findAllByStatusAndArchivedDateBeforeOrderByPeriodStart(ArchiveStatus status, LocalDateTime archivedBefore);
+}
@@ -0,0 +1,19 @@
+package com.fintech.repository;
+
+import com.fintech.model.TransactionArchiveSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TransactionArchiveSegmentRepository extends JpaRepository<TransactionArchiveSegment, Long> {
+    // The account's archived months that can hold rows in [fromDate, toDate], oldest first
+    @Query("select s from TransactionArchiveSegment s where s.userId = :userId " +
+            "and s.lastTransactionDate >= :fromDate and s.firstTransactionDate <= :toDate order by s.firstTransactionDate")
+    List<TransactionArchiveSegment> findOverlapping(@Param("userId") Long userId, @Param("fromDate") LocalDateTime fromDate,
+                                                    @Param("toDate") LocalDateTime toDate);
+}
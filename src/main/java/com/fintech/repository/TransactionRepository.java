@@ -1,15 +1,57 @@
 package com.fintech.repository;
 
+import com.fintech.dto.response.TransactionStatement;
 import com.fintech.model.Transactions;
+import com.fintech.model.enums.TransactionType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transactions,Long> {
-List<Transactions> findAllByUser_Id(Long userId);
+    // Filtered on the row's own user_id so the (user_id, transaction_date, id) index applies
+    @Query("select t from Transactions t join fetch t.user left join fetch t.loan where t.user.id = :userId")
+    List<Transactions> findAllByUser_Id(@Param("userId") Long userId);
+
+    // Statement rows come back in (transactionDate, id) order, starting strictly after the given position.
+    // The plain range on transactionDate is what lets MySQL prune the monthly partitions outside it.
+    @Query("select new com.fintech.dto.response.TransactionStatement(t.id, t.transactionDate, t.transactionType, t.amount) " +
+            "from Transactions t where t.user.id = :userId and t.transactionDate >= :afterDate and t.transactionDate < :toDate " +
+            "and (t.transactionDate > :afterDate or (t.transactionDate = :afterDate and t.id > :afterId)) " +
+            "order by t.transactionDate, t.id")
+    List<TransactionStatement> findStatementPage(@Param("userId") Long userId, @Param("afterDate") LocalDateTime afterDate,
+                                                 @Param("afterId") Long afterId, @Param("toDate") LocalDateTime toDate,
+                                                 Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.fintech.dto.response.TransactionStatement(t.id, t.transactionDate, t.transactionType, t.amount) " +
+            "from Transactions t where t.user.id = :userId and t.transactionDate >= :afterDate and t.transactionDate < :toDate " +
+            "and (t.transactionDate > :afterDate or (t.transactionDate = :afterDate and t.id > :afterId)) " +
+            "order by t.transactionDate, t.id")
+    Stream<TransactionStatement> streamStatement(@Param("userId") Long userId, @Param("afterDate") LocalDateTime afterDate,
+                                                 @Param("afterId") Long afterId, @Param("toDate") LocalDateTime toDate);
 
+    // Net effect of the rows after the first position, up to and including the second
+    @Query("select coalesce(sum(case when t.transactionType in :credits then t.amount else -t.amount end), 0) " +
+            "from Transactions t where t.user.id = :userId and t.transactionDate >= :afterDate and t.transactionDate <= :date " +
+            "and (t.transactionDate > :afterDate or (t.transactionDate = :afterDate and t.id > :afterId)) " +
+            "and (t.transactionDate < :date or (t.transactionDate = :date and t.id <= :id))")
+    BigDecimal sumSignedAmountBetween(@Param("userId") Long userId, @Param("credits") Collection<TransactionType> credits,
+                                      @Param("afterDate") LocalDateTime afterDate, @Param("afterId") Long afterId,
+                                      @Param("date") LocalDateTime date, @Param("id") Long id);
 
+    @Query("select distinct t.user.id from Transactions t where t.transactionDate > :since")
+    List<Long> findUserIdsWithTransactionsAfter(@Param("since") LocalDateTime since);
 }
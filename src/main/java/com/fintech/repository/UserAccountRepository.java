@@ -1,11 +1,23 @@
 package com.fintech.repository;
 
+import com.fintech.dto.response.UserAccountSummary;
+import com.fintech.model.Money;
 import com.fintech.model.UsersAccount;
+import com.fintech.model.enums.AppStatus;
+import com.fintech.service.CacheInvalidationService;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +25,49 @@ import java.util.Optional;
 public interface UserAccountRepository extends JpaRepository<UsersAccount, Long> {
     Optional<UsersAccount> findByEmail(String email);
 
+    // Shared by every caller on this node, so it must not be changed; see AccountLookupService
+    @Cacheable(cacheNames = CacheInvalidationService.USER_ACCOUNTS, key = "#p0", unless = "#result == null")
+    @Query("select u from UsersAccount u where u.id = :id")
+    Optional<UsersAccount> findCachedById(@Param("id") Long id);
+
+    // Balance changes are applied in the database so concurrent requests on one account cannot lose updates
+    @Modifying(flushAutomatically = true)
+    @Query("update UsersAccount u set u.accountBalance = u.accountBalance + :amount where u.id = :userId")
+    int creditBalance(@Param("userId") Long userId, @Param("amount") Money amount);
+
+    // Returns 0 when the account does not hold enough funds, leaving the balance untouched
+    @Modifying(flushAutomatically = true)
+    @Query("update UsersAccount u set u.accountBalance = u.accountBalance - :amount where u.id = :userId and u.accountBalance >= :amount")
+    int debitBalance(@Param("userId") Long userId, @Param("amount") Money amount);
+
+    // Unguarded, only for callers that already hold the row lock and have checked the funds themselves
+    @Modifying(flushAutomatically = true)
+    @Query("update UsersAccount u set u.accountBalance = u.accountBalance + :delta where u.id = :userId")
+    int adjustBalance(@Param("userId") Long userId, @Param("delta") Money delta);
+
+    // Locks in id order so concurrent bulk requests touching the same accounts cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from UsersAccount u where u.id in :ids order by u.id")
+    List<UsersAccount> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Query("select u.accountBalance from UsersAccount u where u.id = :userId")
+    Money findAccountBalanceById(@Param("userId") Long userId);
+
+    // Rows come back in id order, starting strictly after afterId. A filter left null matches everything.
+    // The driver inlines the parameters, so MySQL folds the unused filters away and can still use the indexes
+    @Query("select new com.fintech.dto.response.UserAccountSummary(u.id, u.fullName, u.email, u.phoneNumber, u.accountStatus, u.isVerified, u.createdDate) " +
+            "from UsersAccount u where u.id > :afterId " +
+            "and (:status is null or u.accountStatus = :status) " +
+            "and (:verified is null or u.isVerified = :verified) " +
+            "and (:createdFrom is null or u.createdDate >= :createdFrom) " +
+            "and (:createdTo is null or u.createdDate < :createdTo) " +
+            "order by u.id")
+    List<UserAccountSummary> findSummaryPage(@Param("afterId") Long afterId, @Param("status") AppStatus status,
+                                             @Param("verified") Boolean verified, @Param("createdFrom") LocalDateTime createdFrom,
+                                             @Param("createdTo") LocalDateTime createdTo, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update UsersAccount u set u.password = :password where u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
 }
@@ -0,0 +1,37 @@
+package com.fintech.service;
+
+import com.fintech.model.Admin;
+import com.fintech.model.UsersAccount;
+import com.fintech.repository.AdminRepository;
+import com.fintech.repository.UserAccountRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Cached reads of admins and user accounts for the request paths that only look at them. Paths that
+ * change an admin or account load it from the repository and evict it through {@link CacheInvalidationService}.
+ */
+@Service
+@RequiredArgsConstructor
+public class AccountLookupService {
+    private final AdminRepository adminRepository;
+    private final UserAccountRepository userAccountRepository;
+
+    // Only used as the acting admin and stored as a reference, never changed
+    public Optional<Admin> findAdmin(Long adminId) {
+        return adminRepository.findCachedById(adminId);
+    }
+
+    // Callers get their own copy, and the balance is always read from the database rather than the cache
+    public Optional<UsersAccount> findUser(Long userId) {
+        return userAccountRepository.findCachedById(userId).map(cached -> {
+            UsersAccount usersAccount = new UsersAccount();
+            BeanUtils.copyProperties(cached, usersAccount);
+            usersAccount.setAccountBalance(userAccountRepository.findAccountBalanceById(userId));
+            return usersAccount;
+        });
+    }
+}
@@ -2,9 +2,11 @@ package com.fintech.service;
 
 import com.fintech.dto.JwtAuthenticationResponse;
 import com.fintech.dto.LoginRequest;
+import com.fintech.config.Auditable;
 import com.fintech.dto.ResponseDto;
 import com.fintech.dto.request.AdminAccountRequest;
 import com.fintech.dto.request.UpdateLoanStatusRequest;
+import com.fintech.event.LoanStatusChanged;
 import com.fintech.exception.BadRequestException;
 import com.fintech.model.Admin;
 import com.fintech.model.Loan;
@@ -22,8 +24,11 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Optional;
@@ -37,9 +42,15 @@ public class AdminService {
     private final AdminRepository adminRepository;
     private final LoanRepository loanRepository;
     private final AuthenticationManager authenticationManager;
+    private final LoginThrottleService loginThrottleService;
     private final JWTService jwtService;
     private final PasswordEncoder passwordEncoder;
+    private final LoanScheduleService loanScheduleService;
+    private final AccountLookupService accountLookupService;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final DomainEventPublisher domainEventPublisher;
 
+    @Auditable(action = "ADMIN_CREATED", details = "'Admin account created for ' + #request.email")
     public ResponseEntity<ResponseDto<Admin>> create(AdminAccountRequest request){
         Optional<Admin> adminOptional =adminRepository.findByEmail(request.getEmail());
         if(adminOptional.isPresent()){
@@ -55,9 +66,11 @@ public class AdminService {
         adminRepository.save(admin);
         return ok(admin,"Admin created successfully");
     }
-    public JwtAuthenticationResponse loginAdmin(LoginRequest request) {
+    public JwtAuthenticationResponse loginAdmin(LoginRequest request, String clientAddress) {
+        loginThrottleService.acquire(request.getEmail(), clientAddress);
         authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(
                 request.getEmail(), request.getPassword()));
+        loginThrottleService.succeeded(request.getEmail());
         Admin admin = adminRepository.findByEmail(request.getEmail()).orElseThrow(() -> new IllegalArgumentException("Invalid email or password ..."));
         String jwt = jwtService.generateToken(admin);
         String refreshToken = jwtService.generateRefreshToken(new HashMap<>(), admin);
@@ -68,9 +81,10 @@ public class AdminService {
         return jwtAuthenticationResponse;
     }
 
+    @Auditable(action = "USER_VERIFIED", details = "'User ID: ' + #userId + ' verified'", userId = "#userId", adminId = "#adminId")
     public ResponseEntity<ResponseDto<String>> verifyUserAccount(Long userId, Long adminId) { //before verifying the account we will need to validate the bvn (using rest template or feign client when connected to third party
         Optional<UsersAccount> usersAccountOptional = userAccountRepository.findById(userId);
-        Optional<Admin> adminOptional = adminRepository.findById(adminId);
+        Optional<Admin> adminOptional = accountLookupService.findAdmin(adminId);
         if (usersAccountOptional.isEmpty()) {
             throw new BadRequestException("Account not found");
         }
@@ -83,12 +97,15 @@ public class AdminService {
         usersAccount.setAccountStatus(AppStatus.COMPLETED);
         usersAccount.setVerifiedBy(admin);
         userAccountRepository.save(usersAccount);
+        cacheInvalidationService.evict(CacheInvalidationService.USER_ACCOUNTS, usersAccount.getId());
         return ok(null, "User verified successfully");
     }
 
+    @Auditable(action = "STATUS_CHANGE", details = "'Loan ID: ' + #request.loanId + ' updated to status: ' + #request.loanStatus", adminId = "#request.adminId")
+    @Transactional
     public ResponseEntity<ResponseDto<Loan>> updateLoanStatus(@RequestBody UpdateLoanStatusRequest request) {
         Optional<Loan> loanOptional = loanRepository.findById(request.getLoanId());
-        Optional<Admin> adminOptional = adminRepository.findById(request.getAdminId());
+        Optional<Admin> adminOptional = accountLookupService.findAdmin(request.getAdminId());
         if (loanOptional.isEmpty()) {
             throw new BadRequestException("Loan not found");
         }
@@ -97,8 +114,10 @@ public class AdminService {
         }
         Loan loan = loanOptional.get();
         Admin admin = adminOptional.get();
+        LoanStatus previousStatus = loan.getStatus();
         if (LoanStatus.APPROVED.name().equals(request.getLoanStatus())) {
             loan.setStatus(LoanStatus.APPROVED);
+            loanScheduleService.generateSchedule(loan, LocalDate.now());
         } else if (LoanStatus.REJECTED.name().equals(request.getLoanStatus())) {
             loan.setStatus(LoanStatus.REJECTED);
         } else if (LoanStatus.REPAID.name().equals(request.getLoanStatus())) {
@@ -110,6 +129,10 @@ public class AdminService {
         }
         loan.setVerifiedBy(admin);
         loanRepository.save(loan);
+        if (loan.getStatus() != previousStatus) {
+            domainEventPublisher.publish(new LoanStatusChanged(loan.getId(), loan.getUser().getId(), previousStatus, loan.getStatus(),
+                    admin.getId(), LocalDateTime.now()));
+        }
         return ok(null, "Loan status updated successfully");
     }
 
@@ -0,0 +1,557 @@
+package com.fintech.service;
+
+import com.fintech.dto.response.AuditEvent;
+import com.fintech.model.AuditLog;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only store for audit events on local disk, so the audit trail never competes with the ledger for
+ * the database.
+ *
+ * Events are written to memory-mapped segment files of a fixed size, each record as [payload length]
+ * [CRC32C of payload][payload], with numbers and string lengths as varints. Every index-interval records
+ * close a block, and each block's offset, sequence range and time range are held in memory as a sparse
+ * index, so a scan only decodes blocks that can hold matching events. A full segment is rewritten in the
+ * background as one gzip member per block, with an .idx file listing the blocks, so it stays readable a
+ * block at a time.
+ *
+ * On start the newest segment is read up to the first record that is missing or fails its CRC, which is
+ * where a crash left it, and appending carries on from there.
+ */
+@Slf4j
+@Service
+public class AuditJournal {
+    private static final Pattern SEGMENT_FILE = Pattern.compile("audit-(\\d{20})\\.(log|log\\.gz|idx)");
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int HAS_USER_ID = 1;
+    private static final int HAS_ADMIN_ID = 2;
+    private static final int HAS_ACTION_TYPE = 4;
+    private static final int HAS_DETAILS = 8;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int indexInterval;
+    private final boolean forceOnWrite;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final CRC32C crc = new CRC32C();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "audit-journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Segment active;
+    private long nextSequence = 1;
+
+    public AuditJournal(@Value("${fintech.audit.journal.directory:audit-journal}") String directory,
+                        @Value("${fintech.audit.journal.segment-size:67108864}") int segmentSize,
+                        @Value("${fintech.audit.journal.index-interval:128}") int indexInterval,
+                        @Value("${fintech.audit.journal.force-on-write:true}") boolean forceOnWrite) {
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSize;
+        this.indexInterval = indexInterval;
+        this.forceOnWrite = forceOnWrite;
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        Map<Long, List<String>> files = new TreeMap<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                String name = path.getFileName().toString();
+                Matcher matcher = SEGMENT_FILE.matcher(name);
+                if (matcher.matches()) {
+                    files.computeIfAbsent(Long.parseLong(matcher.group(1)), base -> new ArrayList<>()).add(matcher.group(2));
+                } else if (name.endsWith(".tmp")) {
+                    Files.delete(path);  // Left by a compaction that did not finish
+                }
+            }
+        }
+        for (Map.Entry<Long, List<String>> entry : files.entrySet()) {
+            long base = entry.getKey();
+            if (entry.getValue().contains("log.gz") && entry.getValue().contains("idx")) {
+                // Compaction renames the compressed file into place before deleting the original
+                Files.deleteIfExists(file(base, "log"));
+                Segment segment = new Segment(base, file(base, "log.gz"), null, readIndex(file(base, "idx")));
+                segments.add(segment);
+                nextSequence = Math.max(nextSequence, segment.lastSequence() + 1);
+            } else if (entry.getValue().contains("log")) {
+                Files.deleteIfExists(file(base, "log.gz"));
+                Files.deleteIfExists(file(base, "idx"));
+                Segment segment = new Segment(base, file(base, "log"), map(file(base, "log")), new CopyOnWriteArrayList<>());
+                nextSequence = Math.max(nextSequence, recover(segment));
+                if (active != null) {
+                    active.closeBlock();
+                    compact(active);
+                }
+                segments.add(segment);
+                active = segment;
+            }
+        }
+        if (active == null) {
+            startSegment();
+        }
+        log.info("Audit journal opened in {} with {} segments, next sequence {}", directory, segments.size(), nextSequence);
+    }
+
+    /**
+     * Appends the events in order and returns how many were written; called from the audit writer thread.
+     */
+    public synchronized int append(List<AuditLog> events) throws IOException {
+        int written = 0;
+        for (AuditLog event : events) {
+            byte[] payload = encode(nextSequence, event);
+            int size = RECORD_HEADER_BYTES + payload.length;
+            if (size > segmentSize) {
+                log.error("Audit event {} of {} bytes does not fit in a journal segment", event.getActionType(), payload.length);
+                continue;
+            }
+            if (active.position + size > segmentSize) {
+                roll();
+            }
+            crc.reset();
+            crc.update(payload);
+            MappedByteBuffer buffer = active.buffer;
+            int offset = active.position;
+            buffer.putInt(offset + 4, (int) crc.getValue());
+            buffer.put(offset + RECORD_HEADER_BYTES, payload);
+            // The length goes in last, so a record cut short by a crash reads as the end of the segment
+            buffer.putInt(offset, payload.length);
+            active.addRecord(offset, size, nextSequence, toMicros(event.getTimestamp()), indexInterval);
+            nextSequence++;
+            written++;
+        }
+        if (forceOnWrite) {
+            active.force();
+        }
+        active.publishTail();
+        return written;
+    }
+
+    /**
+     * Events after the given sequence, oldest first, with a timestamp in [from, to) and the given user and
+     * admin when those are set. Stops after limit matches or maxScanned records, whichever comes first.
+     */
+    public ScanResult scan(LocalDateTime from, LocalDateTime to, Long userId, String adminId, long afterSequence,
+                           int limit, int maxScanned) {
+        long fromMicros = from != null ? toMicros(from) : Long.MIN_VALUE;
+        long toMicros = to != null ? toMicros(to) : Long.MAX_VALUE;
+        List<AuditEvent> events = new ArrayList<>();
+        int scanned = 0;
+        for (Segment segment : segments) {
+            for (Block block : segment.readableBlocks()) {
+                if (block.lastSequence() <= afterSequence || block.getMaxMicros() < fromMicros || block.getMinMicros() >= toMicros) {
+                    continue;
+                }
+                for (AuditEvent event : readBlock(segment, block)) {
+                    if (event.getSequence() <= afterSequence) {
+                        continue;
+                    }
+                    long micros = toMicros(event.getTimestamp());
+                    if (micros >= fromMicros && micros < toMicros && (userId == null || userId.equals(event.getUserId()))
+                            && (adminId == null || adminId.equals(event.getAdminId()))) {
+                        events.add(event);
+                        if (events.size() == limit) {
+                            return new ScanResult(events, event.getSequence());
+                        }
+                    }
+                    if (++scanned >= maxScanned) {
+                        return new ScanResult(events, event.getSequence());
+                    }
+                }
+            }
+        }
+        return new ScanResult(events, null);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws InterruptedException {
+        compactor.shutdown();
+        compactor.awaitTermination(30, TimeUnit.SECONDS);
+        if (active != null) {
+            active.force();
+        }
+    }
+
+    private void roll() throws IOException {
+        Segment full = active;
+        full.closeBlock();
+        full.force();
+        startSegment();
+        compact(full);
+    }
+
+    private void startSegment() throws IOException {
+        Path path = file(nextSequence, "log");
+        Segment segment = new Segment(nextSequence, path, map(path), new CopyOnWriteArrayList<>());
+        segments.add(segment);
+        active = segment;
+    }
+
+    private MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    // Rebuilds the segment's blocks from its records and returns the sequence after the last good one
+    private long recover(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        long sequence = segment.baseSequence;
+        int offset = 0;
+        while (offset + RECORD_HEADER_BYTES <= segmentSize) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + RECORD_HEADER_BYTES + length > segmentSize) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(offset + RECORD_HEADER_BYTES, payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                log.warn("Audit journal {} ends in a damaged record at offset {}; appending after the last good one", segment.file, offset);
+                break;
+            }
+            AuditEvent event = decode(ByteBuffer.wrap(payload));
+            segment.addRecord(offset, RECORD_HEADER_BYTES + length, event.getSequence(), toMicros(event.getTimestamp()), indexInterval);
+            sequence = event.getSequence() + 1;
+            offset += RECORD_HEADER_BYTES + length;
+        }
+        // Clears whatever a torn write left past the last good record
+        for (int i = offset; i < segmentSize; i++) {
+            if (buffer.get(i) != 0) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+        segment.publishTail();
+        return sequence;
+    }
+
+    private void compact(Segment segment) {
+        compactor.execute(() -> {
+            try {
+                compress(segment);
+            } catch (IOException | RuntimeException e) {
+                // The segment stays uncompressed and readable; the next start tries again
+                log.error("Failed to compress audit journal segment {}", segment.file, e);
+            }
+        });
+    }
+
+    private void compress(Segment segment) throws IOException {
+        Path compressed = file(segment.baseSequence, "log.gz");
+        Path index = file(segment.baseSequence, "idx");
+        Path compressedTemporary = compressed.resolveSibling(compressed.getFileName() + ".tmp");
+        Path indexTemporary = index.resolveSibling(index.getFileName() + ".tmp");
+        List<Block> blocks = new ArrayList<>();
+        try (FileChannel out = FileChannel.open(compressedTemporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long offset = 0;
+            for (Block block : segment.blocks) {
+                ByteArrayOutputStream member = new ByteArrayOutputStream(block.getLength() / 4);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(member)) {
+                    gzip.write(blockBytes(segment, block));
+                }
+                ByteBuffer bytes = ByteBuffer.wrap(member.toByteArray());
+                while (bytes.hasRemaining()) {
+                    out.write(bytes);
+                }
+                blocks.add(new Block(offset, member.size(), block.getCount(), block.getFirstSequence(),
+                        block.getMinMicros(), block.getMaxMicros()));
+                offset += member.size();
+            }
+            out.force(true);
+        }
+        writeIndex(indexTemporary, blocks);
+        Files.move(indexTemporary, index, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(compressedTemporary, compressed, StandardCopyOption.ATOMIC_MOVE);
+        segments.set(segments.indexOf(segment), new Segment(segment.baseSequence, compressed, null, blocks));
+        // Scans already holding the old segment keep reading its mapping, which outlives the file
+        Files.delete(segment.file);
+    }
+
+    private List<AuditEvent> readBlock(Segment segment, Block block) {
+        ByteBuffer records = ByteBuffer.wrap(blockBytes(segment, block));
+        List<AuditEvent> events = new ArrayList<>(block.getCount());
+        while (records.hasRemaining()) {
+            int length = records.getInt();
+            int checksum = records.getInt();
+            ByteBuffer payload = records.slice(records.position(), length);
+            CRC32C check = new CRC32C();
+            check.update(payload.duplicate());
+            if ((int) check.getValue() != checksum) {
+                throw new IllegalStateException("Audit journal record failed its CRC check in " + segment.file);
+            }
+            events.add(decode(payload));
+            records.position(records.position() + length);
+        }
+        return events;
+    }
+
+    private byte[] blockBytes(Segment segment, Block block) {
+        if (segment.buffer != null) {
+            byte[] bytes = new byte[block.getLength()];
+            segment.buffer.get((int) block.getOffset(), bytes);
+            return bytes;
+        }
+        try (FileChannel channel = FileChannel.open(segment.file, StandardOpenOption.READ)) {
+            ByteBuffer member = ByteBuffer.allocate(block.getLength());
+            while (member.hasRemaining()) {
+                if (channel.read(member, block.getOffset() + member.position()) < 0) {
+                    throw new IOException("Audit journal segment " + segment.file + " is shorter than its index");
+                }
+            }
+            try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(member.array()))) {
+                return gzip.readAllBytes();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path file(long baseSequence, String extension) {
+        return directory.resolve(String.format("audit-%020d.%s", baseSequence, extension));
+    }
+
+    private static void writeIndex(Path path, List<Block> blocks) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(blocks.size());
+            for (Block block : blocks) {
+                out.writeLong(block.getOffset());
+                out.writeInt(block.getLength());
+                out.writeInt(block.getCount());
+                out.writeLong(block.getFirstSequence());
+                out.writeLong(block.getMinMicros());
+                out.writeLong(block.getMaxMicros());
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    private static List<Block> readIndex(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(path)))) {
+            int count = in.readInt();
+            List<Block> blocks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                blocks.add(new Block(in.readLong(), in.readInt(), in.readInt(), in.readLong(), in.readLong(), in.readLong()));
+            }
+            return blocks;
+        }
+    }
+
+    private static byte[] encode(long sequence, AuditLog event) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        writeVarLong(out, sequence);
+        writeVarLong(out, toMicros(event.getTimestamp()));
+        int flags = (event.getUserId() != null ? HAS_USER_ID : 0) | (event.getAdminId() != null ? HAS_ADMIN_ID : 0)
+                | (event.getActionType() != null ? HAS_ACTION_TYPE : 0) | (event.getDetails() != null ? HAS_DETAILS : 0);
+        out.write(flags);
+        if (event.getUserId() != null) {
+            writeVarLong(out, event.getUserId());
+        }
+        writeString(out, event.getAdminId());
+        writeString(out, event.getActionType());
+        writeString(out, event.getDetails());
+        return out.toByteArray();
+    }
+
+    private static AuditEvent decode(ByteBuffer in) {
+        long sequence = readVarLong(in);
+        LocalDateTime timestamp = fromMicros(readVarLong(in));
+        int flags = in.get();
+        Long userId = (flags & HAS_USER_ID) != 0 ? readVarLong(in) : null;
+        String adminId = (flags & HAS_ADMIN_ID) != 0 ? readString(in) : null;
+        String actionType = (flags & HAS_ACTION_TYPE) != 0 ? readString(in) : null;
+        String details = (flags & HAS_DETAILS) != 0 ? readString(in) : null;
+        return new AuditEvent(sequence, timestamp, actionType, details, userId, adminId);
+    }
+
+    // Zig-zag first, so the small negative numbers some ids and timestamps may be stay short too
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.write((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.write((int) zigZag);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long zigZag = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            zigZag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value != null) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, bytes.length);
+            out.writeBytes(bytes);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Timestamps are local date-times, stored as if they were UTC so they read back unchanged
+    private static long toMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + timestamp.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000), (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ScanResult {
+        private final List<AuditEvent> events;
+        private final Long resumeAfter;  // Null once the whole journal has been scanned
+    }
+
+    // A run of consecutive records; the offset is into the segment, or into the compressed file once compacted
+    @Getter
+    @AllArgsConstructor
+    private static class Block {
+        private final long offset;
+        private final int length;
+        private final int count;
+        private final long firstSequence;
+        private final long minMicros;
+        private final long maxMicros;
+
+        long lastSequence() {
+            return firstSequence + count - 1;
+        }
+    }
+
+    private static class Segment {
+        private final long baseSequence;
+        private final Path file;
+        private final MappedByteBuffer buffer;  // Null once compressed
+        private final List<Block> blocks;
+        // The block still being filled in the active segment, republished after every append
+        private volatile Block tail;
+
+        // Appending state, only touched by the writer
+        private int position;
+        private int openCount;
+        private int openOffset;
+        private long openFirstSequence;
+        private long openMinMicros;
+        private long openMaxMicros;
+        private int forcedTo;
+
+        Segment(long baseSequence, Path file, MappedByteBuffer buffer, List<Block> blocks) {
+            this.baseSequence = baseSequence;
+            this.file = file;
+            this.buffer = buffer;
+            this.blocks = blocks;
+        }
+
+        long lastSequence() {
+            return blocks.isEmpty() ? baseSequence - 1 : blocks.get(blocks.size() - 1).lastSequence();
+        }
+
+        void addRecord(int offset, int size, long sequence, long micros, int indexInterval) {
+            if (openCount == 0) {
+                openOffset = offset;
+                openFirstSequence = sequence;
+                openMinMicros = micros;
+                openMaxMicros = micros;
+            }
+            openCount++;
+            openMinMicros = Math.min(openMinMicros, micros);
+            openMaxMicros = Math.max(openMaxMicros, micros);
+            position = offset + size;
+            if (openCount == indexInterval) {
+                closeBlock();
+            }
+        }
+
+        void closeBlock() {
+            if (openCount > 0) {
+                blocks.add(new Block(openOffset, position - openOffset, openCount, openFirstSequence, openMinMicros, openMaxMicros));
+                openCount = 0;
+            }
+            tail = null;
+        }
+
+        void publishTail() {
+            tail = openCount > 0 ? new Block(openOffset, position - openOffset, openCount, openFirstSequence, openMinMicros, openMaxMicros) : null;
+        }
+
+        void force() {
+            if (position > forcedTo) {
+                buffer.force(forcedTo, position - forcedTo);
+                forcedTo = position;
+            }
+        }
+
+        // The tail is read before the blocks, so a tail that has just been closed into a block is not counted twice
+        List<Block> readableBlocks() {
+            Block open = tail;
+            List<Block> closed = blocks;
+            if (open == null || (!closed.isEmpty() && closed.get(closed.size() - 1).getOffset() >= open.getOffset())) {
+                return closed;
+            }
+            List<Block> readable = new ArrayList<>(closed);
+            readable.add(open);
+            return readable;
+        }
+    }
+}
@@ -1,16 +1,82 @@
 package com.fintech.service;
 
+import com.fintech.dto.ResponseDto;
+import com.fintech.dto.response.AuditEventPage;
+import com.fintech.exception.BadRequestException;
 import com.fintech.model.AuditLog;
-import com.fintech.repository.AuditLogRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
+import static com.fintech.dto.ApiResponse.ok;
+
+/**
+ * Buffers audit events in a bounded in-memory queue and appends them to the {@link AuditJournal} in
+ * batches from a single background thread, so callers never wait on the disk.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class AuditLogService {
-    private final AuditLogRepository auditLogRepository;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final AuditJournal auditJournal;
+    private final BlockingQueue<AuditLog> buffer;
+    private final int flushSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final long shutdownTimeoutMs;
+    private final int maxScanRecords;
+    private final Counter enqueuedCounter;
+    private final Counter droppedCounter;
+    private final Counter writtenCounter;
+    private final Counter failedCounter;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public AuditLogService(AuditJournal auditJournal, MeterRegistry meterRegistry,
+                           @Value("${fintech.audit.buffer-size:8192}") int bufferSize,
+                           @Value("${fintech.audit.flush-size:200}") int flushSize,
+                           @Value("${fintech.audit.flush-interval-ms:500}") long flushIntervalMs,
+                           @Value("${fintech.audit.offer-timeout-ms:0}") long offerTimeoutMs,
+                           @Value("${fintech.audit.shutdown-timeout-ms:10000}") long shutdownTimeoutMs,
+                           @Value("${fintech.audit.journal.max-scan-records:1000000}") int maxScanRecords) {
+        this.auditJournal = auditJournal;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.flushSize = flushSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.maxScanRecords = maxScanRecords;
+        this.enqueuedCounter = meterRegistry.counter("audit.events.enqueued");
+        this.droppedCounter = meterRegistry.counter("audit.events.dropped");
+        this.writtenCounter = meterRegistry.counter("audit.events.written");
+        this.failedCounter = meterRegistry.counter("audit.events.failed");
+        Gauge.builder("audit.buffer.size", buffer, BlockingQueue::size).register(meterRegistry);
+        this.writer = new Thread(this::runWriter, "audit-log-writer");
+        this.writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.start();
+    }
 
     public void logAction(String actionType, String details, Long userId, String adminId) {
         AuditLog auditLog = new AuditLog();
@@ -19,6 +85,112 @@ public class AuditLogService {
         auditLog.setTimestamp(LocalDateTime.now());
         auditLog.setUserId(userId);
         auditLog.setAdminId(adminId);
-        auditLogRepository.save(auditLog);
+        if (offer(auditLog)) {
+            enqueuedCounter.increment();
+        } else {
+            droppedCounter.increment();
+        }
+    }
+
+    private boolean offer(AuditLog auditLog) {
+        if (!running) {
+            return false;
+        }
+        if (offerTimeoutMs <= 0) {
+            return buffer.offer(auditLog);
+        }
+        try {
+            return buffer.offer(auditLog, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void runWriter() {
+        List<AuditLog> batch = new ArrayList<>(flushSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Waits for the first event, then keeps collecting until the batch is full or the interval ends
+    private void fillBatch(List<AuditLog> batch) throws InterruptedException {
+        AuditLog first = buffer.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (batch.size() < flushSize) {
+            buffer.drainTo(batch, flushSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= flushSize || remaining <= 0 || !running) {
+                return;
+            }
+            AuditLog next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<AuditLog> batch) {
+        try {
+            int written = auditJournal.append(batch);
+            writtenCounter.increment(written);
+            failedCounter.increment(batch.size() - written);
+        } catch (IOException | RuntimeException e) {
+            failedCounter.increment(batch.size());
+            log.error("Failed to write {} audit events", batch.size(), e);
+        }
+    }
+
+    /**
+     * Audit events in [from, to), optionally for one user or admin, read from the journal only. A page ends
+     * early once max-scan-records have been read, so a narrow filter over a long range comes back in steps.
+     */
+    public ResponseEntity<ResponseDto<AuditEventPage>> findEvents(LocalDateTime from, LocalDateTime to, Long userId, String adminId,
+                                                                  String cursor, Integer size) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BadRequestException("from must be before to");
+        }
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        long afterSequence = cursor != null ? decodeCursor(cursor) : 0L;
+        AuditJournal.ScanResult result = auditJournal.scan(from, to, userId, adminId, afterSequence, pageSize, maxScanRecords);
+        String nextCursor = result.getResumeAfter() != null ? encodeCursor(result.getResumeAfter()) : null;
+        return ok(new AuditEventPage(result.getEvents(), nextCursor), "Audit events retrieved successfully");
+    }
+
+    private static String encodeCursor(long sequence) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Long.toString(sequence).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid audit event cursor");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // The writer notices within one flush interval and drains what is still buffered
+        running = false;
+        writer.join(shutdownTimeoutMs);
+        if (!buffer.isEmpty()) {
+            log.warn("{} audit events were not written before shutdown", buffer.size());
+        }
     }
 }
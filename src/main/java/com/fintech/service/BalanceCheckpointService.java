@@ -0,0 +1,149 @@
+package com.fintech.service;
+
+import com.fintech.dto.response.TransactionStatement;
+import com.fintech.model.BalanceCheckpoint;
+import com.fintech.model.Money;
+import com.fintech.model.enums.TransactionType;
+import com.fintech.repository.BalanceCheckpointRepository;
+import com.fintech.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records each account's running balance every N ledger rows, so a balance at any point in time is the
+ * nearest checkpoint plus a sum over at most a few hundred rows instead of the whole history.
+ *
+ * The write path only marks the account as dirty. Checkpoints are written later by a scheduled job
+ * that only looks at rows older than the settle lag, so a transaction that commits a little after its
+ * transactionDate can never land behind a checkpoint that has already been taken.
+ */
+@Slf4j
+@Service
+public class BalanceCheckpointService {
+    private static final LocalDateTime START_OF_TIME = LocalDateTime.of(1000, 1, 1, 0, 0);
+
+    private final BalanceCheckpointRepository balanceCheckpointRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionArchiveStore transactionArchiveStore;
+    private final TransactionTemplate transactionTemplate;
+    // Account id to the time of its latest ledger write
+    private final Map<Long, Long> dirtyAccounts = new ConcurrentHashMap<>();
+    private final int interval;
+    private final long settleLagMs;
+
+    public BalanceCheckpointService(BalanceCheckpointRepository balanceCheckpointRepository,
+                                    TransactionRepository transactionRepository,
+                                    TransactionArchiveStore transactionArchiveStore,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${fintech.checkpoint.interval:500}") int interval,
+                                    @Value("${fintech.checkpoint.settle-lag-ms:60000}") long settleLagMs) {
+        this.balanceCheckpointRepository = balanceCheckpointRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionArchiveStore = transactionArchiveStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.interval = interval;
+        this.settleLagMs = settleLagMs;
+    }
+
+    public void markDirty(Long userId) {
+        dirtyAccounts.put(userId, System.currentTimeMillis());
+    }
+
+    /**
+     * Net effect of every ledger row of the user up to and including the given (transactionDate, id) position.
+     * Rows in archived months are summed from the archive, the rest from the table.
+     */
+    public Money balanceAt(Long userId, LocalDateTime date, Long id) {
+        List<BalanceCheckpoint> checkpoints = balanceCheckpointRepository.findLatestUpTo(userId, date, id, PageRequest.of(0, 1));
+        BalanceCheckpoint checkpoint = checkpoints.isEmpty() ? null : checkpoints.get(0);
+        Money balance = checkpoint != null ? checkpoint.getBalance() : Money.ZERO;
+        LocalDateTime afterDate = checkpoint != null ? checkpoint.getTransactionDate() : START_OF_TIME;
+        Long afterId = checkpoint != null ? checkpoint.getTransactionId() : 0L;
+        LocalDateTime archivedBefore = transactionArchiveStore.archivedBefore();
+        if (afterDate.isBefore(archivedBefore)) {
+            balance = balance.plus(transactionArchiveStore.sumSignedAmountBetween(userId, afterDate, afterId, date, id));
+            // Archiving checkpoints every account at its last archived row, so this only reads one month
+            afterDate = archivedBefore;
+            afterId = 0L;
+        }
+        return balance.plus(Money.of(transactionRepository.sumSignedAmountBetween(userId, TransactionType.CREDITS,
+                afterDate, afterId, date, id)));
+    }
+
+    /**
+     * Records the balance at the given position, unless a checkpoint is already there.
+     */
+    public void checkpointAt(Long userId, LocalDateTime date, Long id) {
+        List<BalanceCheckpoint> checkpoints = balanceCheckpointRepository.findLatestUpTo(userId, date, id, PageRequest.of(0, 1));
+        if (!checkpoints.isEmpty() && checkpoints.get(0).getTransactionDate().equals(date) && checkpoints.get(0).getTransactionId().equals(id)) {
+            return;
+        }
+        balanceCheckpointRepository.save(new BalanceCheckpoint(null, userId, id, date, balanceAt(userId, date, id), LocalDateTime.now()));
+    }
+
+    // After a restart the dirty set is empty, so pick up every account written since the last run
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverDirtyAccounts() {
+        LocalDateTime lastRun = balanceCheckpointRepository.findLatestCreatedDate();
+        LocalDateTime since = lastRun == null ? START_OF_TIME : lastRun.minusNanos(settleLagMs * 2_000_000);
+        for (Long userId : transactionRepository.findUserIdsWithTransactionsAfter(since)) {
+            dirtyAccounts.putIfAbsent(userId, 0L);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${fintech.checkpoint.run-interval-ms:10000}")
+    public void writeCheckpoints() {
+        long settledBefore = System.currentTimeMillis() - settleLagMs;
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(settleLagMs * 1_000_000);
+        for (Map.Entry<Long, Long> entry : dirtyAccounts.entrySet()) {
+            // The scheduler interrupts the run on shutdown; what is left stays dirty for the next start
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            // Accounts written inside the lag wait for the next run; a newer write keeps the account dirty
+            if (entry.getValue() > settledBefore || !dirtyAccounts.remove(entry.getKey(), entry.getValue())) {
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> checkpoint(entry.getKey(), cutoff));
+            } catch (RuntimeException e) {
+                dirtyAccounts.putIfAbsent(entry.getKey(), entry.getValue());
+                log.warn("Balance checkpoint failed for account {}", entry.getKey(), e);
+            }
+        }
+    }
+
+    private void checkpoint(Long userId, LocalDateTime cutoff) {
+        BalanceCheckpoint last = balanceCheckpointRepository.findFirstByUserIdOrderByTransactionDateDescTransactionIdDesc(userId).orElse(null);
+        LocalDateTime afterDate = last != null ? last.getTransactionDate() : START_OF_TIME;
+        Long afterId = last != null ? last.getTransactionId() : 0L;
+        Money balance = last != null ? last.getBalance() : Money.ZERO;
+        while (true) {
+            List<TransactionStatement> rows = transactionRepository.findStatementPage(userId, afterDate, afterId, cutoff,
+                    PageRequest.of(0, interval));
+            // Only full intervals are checkpointed; the remainder is covered by the delta sum until it fills up
+            if (rows.size() < interval) {
+                return;
+            }
+            for (TransactionStatement row : rows) {
+                balance = row.getTransactionType().isCredit() ? balance.plus(row.getAmount()) : balance.minus(row.getAmount());
+            }
+            TransactionStatement lastRow = rows.get(rows.size() - 1);
+            afterDate = lastRow.getTransactionDate();
+            afterId = lastRow.getTransactionId();
+            balanceCheckpointRepository.save(new BalanceCheckpoint(null, userId, afterId, afterDate, balance, LocalDateTime.now()));
+        }
+    }
+}
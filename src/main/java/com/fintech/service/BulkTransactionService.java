@@ -0,0 +1,205 @@
+package com.fintech.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fintech.config.Auditable;
+import com.fintech.exception.VelocityLimitExceededException;
+import com.fintech.dto.request.ApplyTransactionRequest;
+import com.fintech.dto.response.BulkTransactionResult;
+import com.fintech.dto.response.BulkTransactionSummary;
+import com.fintech.event.TransactionApplied;
+import com.fintech.model.Money;
+import com.fintech.model.Transactions;
+import com.fintech.model.UsersAccount;
+import com.fintech.model.enums.AppStatus;
+import com.fintech.model.enums.TransactionType;
+import com.fintech.repository.TransactionRepository;
+import com.fintech.repository.UserAccountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies large batches of deposits and withdrawals, such as partner settlement files. Items are taken in
+ * chunks; each chunk locks its accounts once, moves every balance by its net amount in a single update
+ * and writes the ledger rows as batched inserts. Every item gets its own result, so one bad row does
+ * not fail the rest. Items are held to the same velocity limits as single transactions; one that would break
+ * a limit is rejected, and the counts of a chunk that rolls back are taken back with it.
+ *
+ * Each chunk commits on its own and its results are handed out as soon as it has, so nothing grows with the
+ * size of the batch. If a chunk fails after earlier ones committed, the batch stops there and its last result
+ * says from which item on nothing was applied. With an Idempotency-Key every chunk is recorded under the key
+ * and its position, so sending the same batch again replays the committed chunks and applies the rest.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkTransactionService {
+    public static final String IDEMPOTENCY_SCOPE = "apply-transaction-bulk";
+    private static final TypeReference<List<BulkTransactionResult>> CHUNK_RESULTS = new TypeReference<>() {
+    };
+
+    private final UserAccountRepository userAccountRepository;
+    private final TransactionRepository transactionRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final BalanceCheckpointService balanceCheckpointService;
+    private final DomainEventPublisher domainEventPublisher;
+    private final VelocityLimitService velocityLimitService;
+    private final IdempotencyService idempotencyService;
+
+    @Value("${fintech.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    @Auditable(action = "BULK_TRANSACTION", details = "'Bulk batch of ' + #result.items + ' items, ' + #result.applied + ' applied'"
+            + " + (#result.failedAt == null ? '' : ', stopped at item ' + #result.failedAt)")
+    public BulkTransactionSummary applyTransactions(Iterator<ApplyTransactionRequest> requests, String idempotencyKey,
+                                                    Consumer<List<BulkTransactionResult>> sink) {
+        String key = idempotencyService.scopedKey(idempotencyKey, IDEMPOTENCY_SCOPE);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<ApplyTransactionRequest> chunk = new ArrayList<>(chunkSize);
+        int items = 0;
+        int applied = 0;
+        for (int chunkNumber = 0; requests.hasNext(); chunkNumber++) {
+            chunk.clear();
+            while (chunk.size() < chunkSize && requests.hasNext()) {
+                chunk.add(requests.next());
+            }
+            int firstIndex = items;
+            List<BulkTransactionResult> results;
+            try {
+                results = key == null
+                        ? transactionTemplate.execute(status -> applyChunk(chunk, firstIndex))
+                        : idempotencyService.executePart(key + ":" + chunkNumber, chunk, CHUNK_RESULTS,
+                                () -> transactionTemplate.execute(status -> applyChunk(chunk, firstIndex)));
+            } catch (RuntimeException e) {
+                if (firstIndex == 0) {
+                    throw e;
+                }
+                // Earlier chunks are committed and their results already sent, so the failure is reported in-band
+                log.error("Bulk batch failed at item {}", firstIndex, e);
+                sink.accept(List.of(new BulkTransactionResult(firstIndex, null, BulkTransactionResult.FAILED, null,
+                        "Items from here on were not applied" + (key == null ? "" : "; send the batch again with the same "
+                                + IdempotencyService.HEADER + " to apply them"))));
+                return new BulkTransactionSummary(items + 1, applied, firstIndex);
+            }
+            items += results.size();
+            for (BulkTransactionResult result : results) {
+                if (BulkTransactionResult.APPLIED.equals(result.getStatus())) {
+                    applied++;
+                }
+            }
+            sink.accept(results);
+        }
+        return new BulkTransactionSummary(items, applied, null);
+    }
+
+    private List<BulkTransactionResult> applyChunk(List<ApplyTransactionRequest> chunk, int firstIndex) {
+        List<BulkTransactionResult> results = new ArrayList<>(chunk.size());
+        Set<Long> userIds = new TreeSet<>();
+        for (ApplyTransactionRequest request : chunk) {
+            if (request.getUserId() != null) {
+                userIds.add(request.getUserId());
+            }
+        }
+        Map<Long, UsersAccount> accounts = userIds.isEmpty() ? Map.of() : userAccountRepository.findAllByIdForUpdate(userIds)
+                .stream().collect(Collectors.toMap(UsersAccount::getId, Function.identity()));
+        Map<Long, Money> balances = new HashMap<>();
+        Map<Long, Money> netChanges = new HashMap<>();
+        List<Transactions> ledger = new ArrayList<>(chunk.size());
+        List<BulkTransactionResult> applied = new ArrayList<>(chunk.size());
+        LocalDateTime now = LocalDateTime.now();
+
+        // Items are replayed in submission order, so a withdrawal can use a deposit earlier in the same batch
+        for (int i = 0; i < chunk.size(); i++) {
+            ApplyTransactionRequest request = chunk.get(i);
+            BulkTransactionResult result = new BulkTransactionResult(firstIndex + i, request.getUserId(), null, null, null);
+            results.add(result);
+            String rejection = validate(request, accounts);
+            if (rejection != null) {
+                reject(result, rejection);
+                continue;
+            }
+            UsersAccount account = accounts.get(request.getUserId());
+            TransactionType type = TransactionType.valueOf(request.getTransactionType());
+            Money balance = balances.computeIfAbsent(account.getId(), id -> account.getAccountBalance());
+            Money change = type.isCredit() ? request.getAmount() : request.getAmount().negate();
+            if (balance.plus(change).isNegative()) {
+                reject(result, "Insufficient funds for this withdrawal");
+                continue;
+            }
+            try {
+                velocityLimitService.check(account.getId(), type, request.getAmount());
+            } catch (VelocityLimitExceededException e) {
+                reject(result, e.getMessage());
+                continue;
+            }
+            balances.put(account.getId(), balance.plus(change));
+            netChanges.merge(account.getId(), change, Money::plus);
+
+            Transactions transaction = new Transactions();
+            transaction.setAmount(request.getAmount());
+            transaction.setTransactionDate(now);
+            transaction.setUser(account);
+            transaction.setStatus(AppStatus.COMPLETED);
+            transaction.setTransactionType(type);
+            ledger.add(transaction);
+            applied.add(result);
+        }
+
+        netChanges.forEach((userId, delta) -> {
+            if (delta.signum() != 0) {
+                userAccountRepository.adjustBalance(userId, delta);
+            }
+            balanceCheckpointService.markDirty(userId);
+        });
+        // Ids come from the pooled sequence, so these inserts go out as JDBC batches
+        transactionRepository.saveAll(ledger);
+        List<TransactionApplied> events = new ArrayList<>(ledger.size());
+        for (Transactions transaction : ledger) {
+            events.add(TransactionService.transactionApplied(transaction, transaction.getUser().getId(), null));
+        }
+        domainEventPublisher.publishAll(events);
+        entityManager.flush();
+        for (int i = 0; i < ledger.size(); i++) {
+            applied.get(i).setStatus(BulkTransactionResult.APPLIED);
+            applied.get(i).setTransactionId(ledger.get(i).getId());
+        }
+        entityManager.clear();
+        return results;
+    }
+
+    private static String validate(ApplyTransactionRequest request, Map<Long, UsersAccount> accounts) {
+        if (request.getUserId() == null || !accounts.containsKey(request.getUserId())) {
+            return "Account not found";
+        }
+        if (request.getAmount() == null || !request.getAmount().isPositive()) {
+            return "Transaction amount must be positive";
+        }
+        if (!TransactionType.DEPOSIT.name().equals(request.getTransactionType())
+                && !TransactionType.WITHDRAWAL.name().equals(request.getTransactionType())) {
+            return "Transaction type must be DEPOSIT or WITHDRAWAL";
+        }
+        return null;
+    }
+
+    private static void reject(BulkTransactionResult result, String reason) {
+        result.setStatus(BulkTransactionResult.REJECTED);
+        result.setReason(reason);
+    }
+}
@@ -0,0 +1,134 @@
+package com.fintech.service;
+
+import com.fintech.model.CacheInvalidation;
+import com.fintech.repository.CacheInvalidationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the per-node admin and account caches in step across nodes. The writing node evicts an entry
+ * at once and again after its transaction commits, and records the eviction in cache_invalidation.
+ * Every other node reads that table on its own thread every refresh interval, so no node serves a
+ * changed row for longer than that.
+ */
+@Slf4j
+@Service
+public class CacheInvalidationService {
+    public static final String ADMINS = "admins";
+    public static final String USER_ACCOUNTS = "userAccounts";
+
+    // An id below the last one read can still commit later; it is looked for again until this has passed
+    private static final long GAP_TIMEOUT_MS = 60_000;
+    private static final int MAX_TRACKED_GAPS = 1000;
+
+    private final CacheManager cacheManager;
+    private final CacheInvalidationRepository cacheInvalidationRepository;
+    private final long refreshIntervalMs;
+    private final long retentionMs;
+    private final Counter recordedInvalidations;
+    private final Counter appliedInvalidations;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-invalidation-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Only touched on the refresher thread once started
+    private long lastSeenId;
+    private final Map<Long, Long> gapsSinceMillis = new HashMap<>();
+
+    public CacheInvalidationService(CacheManager cacheManager, CacheInvalidationRepository cacheInvalidationRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${fintech.cache.invalidation-refresh-ms:1000}") long refreshIntervalMs,
+                                    @Value("${fintech.cache.invalidation-retention-ms:3600000}") long retentionMs) {
+        this.cacheManager = cacheManager;
+        this.cacheInvalidationRepository = cacheInvalidationRepository;
+        this.refreshIntervalMs = refreshIntervalMs;
+        this.retentionMs = retentionMs;
+        this.recordedInvalidations = meterRegistry.counter("cache.invalidations", "operation", "record");
+        this.appliedInvalidations = meterRegistry.counter("cache.invalidations", "operation", "apply");
+    }
+
+    @PostConstruct
+    public void start() {
+        // The caches start empty, so only invalidations written from now on matter
+        lastSeenId = cacheInvalidationRepository.findLatestId();
+        executor.scheduleWithFixedDelay(this::refresh, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::purge, retentionMs, retentionMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void evict(String cacheName, Long key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        cache.evict(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A concurrent reader may have cached the old row again before the commit
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evict(key);
+                }
+            });
+        }
+        cacheInvalidationRepository.save(new CacheInvalidation(null, cacheName, String.valueOf(key), LocalDateTime.now()));
+        recordedInvalidations.increment();
+    }
+
+    private void refresh() {
+        try {
+            List<CacheInvalidation> invalidations = new ArrayList<>(cacheInvalidationRepository.findAllByIdGreaterThanOrderById(lastSeenId));
+            if (!gapsSinceMillis.isEmpty()) {
+                invalidations.addAll(cacheInvalidationRepository.findAllById(gapsSinceMillis.keySet()));
+            }
+            long now = System.currentTimeMillis();
+            for (CacheInvalidation invalidation : invalidations) {
+                Long id = invalidation.getId();
+                if (gapsSinceMillis.remove(id) == null) {
+                    for (long missing = lastSeenId + 1; missing < id && gapsSinceMillis.size() < MAX_TRACKED_GAPS; missing++) {
+                        gapsSinceMillis.put(missing, now);
+                    }
+                    lastSeenId = Math.max(lastSeenId, id);
+                }
+                Cache cache = cacheManager.getCache(invalidation.getCacheName());
+                if (cache != null) {
+                    cache.evict(Long.valueOf(invalidation.getEntryKey()));
+                    appliedInvalidations.increment();
+                }
+            }
+            // Rolled back inserts leave gaps that never fill
+            gapsSinceMillis.values().removeIf(since -> now - since > GAP_TIMEOUT_MS);
+        } catch (RuntimeException e) {
+            // An exception here would cancel the schedule for good
+            log.warn("Could not read cache invalidations", e);
+        }
+    }
+
+    private void purge() {
+        try {
+            cacheInvalidationRepository.deleteCreatedBefore(LocalDateTime.now().minusNanos(retentionMs * 1_000_000));
+        } catch (RuntimeException e) {
+            log.warn("Could not purge cache invalidations", e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,232 @@
+package com.fintech.service;
+
+import com.fintech.config.Auditable;
+import com.fintech.dto.ResponseDto;
+import com.fintech.dto.response.DailyRollupReport;
+import com.fintech.exception.BadRequestException;
+import com.fintech.model.DailyTransactionRollup;
+import com.fintech.model.Money;
+import com.fintech.model.RollupWatermark;
+import com.fintech.model.enums.TransactionType;
+import com.fintech.repository.DailyTransactionRollupRepository;
+import com.fintech.repository.RollupWatermarkRepository;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.fintech.dto.ApiResponse.ok;
+
+/**
+ * Keeps per-day totals of every transaction type for each account and for the platform as a whole.
+ * A scheduled job rolls up ledger rows in (transactionDate, id) order after a persisted high-water
+ * mark, leaving the most recent rows alone until the settle lag has passed so late commits are not
+ * skipped. Reports then read one row per day and type instead of scanning transactions.
+ */
+@Slf4j
+@Service
+public class DailyRollupService {
+    private static final String WATERMARK = "daily_transaction_rollup";
+    private static final LocalDateTime START_OF_TIME = LocalDateTime.of(1000, 1, 1, 0, 0);
+
+    private static final String SELECT_PAGE_SQL = "select id, transaction_date, transaction_type, amount, user_id from transactions " +
+            "where transaction_date >= ? and transaction_date < ? and (transaction_date > ? or (transaction_date = ? and id > ?)) " +
+            "and transaction_type is not null and amount is not null order by transaction_date, id limit ?";
+    private static final String UPSERT_SQL = "insert into daily_transaction_rollup (rollup_date, user_id, transaction_type, total_amount, transaction_count) " +
+            "values (?, ?, ?, ?, ?) on duplicate key update total_amount = total_amount + values(total_amount), " +
+            "transaction_count = transaction_count + values(transaction_count)";
+    private static final String DELETE_RANGE_SQL = "delete from daily_transaction_rollup where rollup_date >= ? and rollup_date <= ?";
+    // Rebuilds stop at the high-water mark; anything after it is left to the catch-up job
+    private static final String REBUILD_WHERE = " from transactions where transaction_date >= ? and transaction_date < ? " +
+            "and (transaction_date < ? or (transaction_date = ? and id <= ?)) " +
+            "and transaction_type is not null and amount is not null";
+    private static final String REBUILD_ACCOUNTS_SQL = "insert into daily_transaction_rollup (rollup_date, user_id, transaction_type, total_amount, transaction_count) " +
+            "select cast(transaction_date as date), user_id, transaction_type, sum(amount), count(*)" + REBUILD_WHERE +
+            " and user_id is not null group by cast(transaction_date as date), user_id, transaction_type";
+    private static final String REBUILD_PLATFORM_SQL = "insert into daily_transaction_rollup (rollup_date, user_id, transaction_type, total_amount, transaction_count) " +
+            "select cast(transaction_date as date), " + DailyTransactionRollup.PLATFORM_USER_ID + ", transaction_type, sum(amount), count(*)" + REBUILD_WHERE +
+            " group by cast(transaction_date as date), transaction_type";
+
+    private final DailyTransactionRollupRepository dailyTransactionRollupRepository;
+    private final RollupWatermarkRepository rollupWatermarkRepository;
+    private final TransactionArchiveStore transactionArchiveStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int pageSize;
+    private final long settleLagMs;
+    private final int maxReportDays;
+    private final int rebuildChunkDays;
+
+    public DailyRollupService(DailyTransactionRollupRepository dailyTransactionRollupRepository,
+                              RollupWatermarkRepository rollupWatermarkRepository,
+                              TransactionArchiveStore transactionArchiveStore,
+                              JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              @Value("${fintech.rollup.page-size:5000}") int pageSize,
+                              @Value("${fintech.rollup.settle-lag-ms:60000}") long settleLagMs,
+                              @Value("${fintech.rollup.max-report-days:366}") int maxReportDays,
+                              @Value("${fintech.rollup.rebuild-chunk-days:31}") int rebuildChunkDays) {
+        this.dailyTransactionRollupRepository = dailyTransactionRollupRepository;
+        this.rollupWatermarkRepository = rollupWatermarkRepository;
+        this.transactionArchiveStore = transactionArchiveStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.pageSize = pageSize;
+        this.settleLagMs = settleLagMs;
+        this.maxReportDays = maxReportDays;
+        this.rebuildChunkDays = rebuildChunkDays;
+    }
+
+    /**
+     * Daily totals for one account, or for the whole platform when userId is null.
+     */
+    public ResponseEntity<ResponseDto<DailyRollupReport>> getDailyRollups(Long userId, LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        if (ChronoUnit.DAYS.between(from, to) >= maxReportDays) {
+            throw new BadRequestException("Report range cannot exceed " + maxReportDays + " days");
+        }
+        List<DailyTransactionRollup> rollups = dailyTransactionRollupRepository
+                .findAllByUserIdAndRollupDateBetweenOrderByRollupDateAscTransactionTypeAsc(
+                        userId != null ? userId : DailyTransactionRollup.PLATFORM_USER_ID, from, to);
+        return ok(new DailyRollupReport(rollups, rolledUpThrough()), "Daily rollups retrieved successfully");
+    }
+
+    /**
+     * Every ledger row dated up to this instant is in the rollups, or null before the first catch-up run.
+     */
+    public LocalDateTime rolledUpThrough() {
+        return rollupWatermarkRepository.findById(WATERMARK).map(RollupWatermark::getLastTransactionDate).orElse(null);
+    }
+
+    @Scheduled(fixedDelayString = "${fintech.rollup.run-interval-ms:60000}")
+    public void catchUp() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(settleLagMs * 1_000_000);
+        try {
+            while (Boolean.TRUE.equals(transactionTemplate.execute(status -> rollUpNextPage(cutoff)))) {
+                // Each page commits with its watermark, so a failure resumes from the last full page
+            }
+        } catch (RuntimeException e) {
+            log.warn("Daily rollup catch-up failed", e);
+        }
+    }
+
+    private boolean rollUpNextPage(LocalDateTime cutoff) {
+        RollupWatermark watermark = lockWatermark();
+        Timestamp afterDate = Timestamp.valueOf(watermark.getLastTransactionDate());
+        List<LedgerRow> rows = jdbcTemplate.query(SELECT_PAGE_SQL, (rs, rowNum) -> new LedgerRow(
+                        rs.getLong("id"), rs.getTimestamp("transaction_date").toLocalDateTime(),
+                        TransactionType.valueOf(rs.getString("transaction_type")), Money.of(rs.getBigDecimal("amount")),
+                        rs.getObject("user_id", Long.class)),
+                afterDate, Timestamp.valueOf(cutoff), afterDate, afterDate, watermark.getLastTransactionId(), pageSize);
+        if (rows.isEmpty()) {
+            return false;
+        }
+        Map<RollupKey, Total> totals = new HashMap<>();
+        for (LedgerRow row : rows) {
+            LocalDate day = row.getTransactionDate().toLocalDate();
+            totals.computeIfAbsent(new RollupKey(day, DailyTransactionRollup.PLATFORM_USER_ID, row.getTransactionType()), key -> new Total()).add(row.getAmount());
+            if (row.getUserId() != null) {
+                totals.computeIfAbsent(new RollupKey(day, row.getUserId(), row.getTransactionType()), key -> new Total()).add(row.getAmount());
+            }
+        }
+        List<Map.Entry<RollupKey, Total>> entries = new ArrayList<>(totals.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setDate(1, Date.valueOf(entry.getKey().getDay()));
+            ps.setLong(2, entry.getKey().getUserId());
+            ps.setString(3, entry.getKey().getTransactionType().name());
+            ps.setBigDecimal(4, Money.ofMinor(entry.getValue().amount).toBigDecimal());
+            ps.setLong(5, entry.getValue().count);
+        });
+        LedgerRow last = rows.get(rows.size() - 1);
+        watermark.setLastTransactionDate(last.getTransactionDate());
+        watermark.setLastTransactionId(last.getId());
+        watermark.setUpdatedDate(LocalDateTime.now());
+        return rows.size() == pageSize;
+    }
+
+    /**
+     * Recomputes the rollups for whole days in the range from the ledger, for backfills and repairs.
+     */
+    @Auditable(action = "ROLLUP_REBUILD", details = "'Daily rollups rebuilt from ' + #from + ' to ' + #to")
+    public ResponseEntity<ResponseDto<String>> rebuild(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        // The ledger rows of archived months are no longer in the table to recompute from
+        LocalDateTime archivedBefore = transactionArchiveStore.archivedBefore();
+        if (from.atStartOfDay().isBefore(archivedBefore)) {
+            throw new BadRequestException("Days before " + archivedBefore.toLocalDate() + " are archived and cannot be rebuilt");
+        }
+        for (LocalDate chunkStart = from; !chunkStart.isAfter(to); chunkStart = chunkStart.plusDays(rebuildChunkDays)) {
+            LocalDate chunkEnd = chunkStart.plusDays(rebuildChunkDays - 1L).isAfter(to) ? to : chunkStart.plusDays(rebuildChunkDays - 1L);
+            LocalDate start = chunkStart;
+            transactionTemplate.executeWithoutResult(status -> rebuildDays(start, chunkEnd));
+        }
+        return ok("Rebuilt daily rollups from " + from + " to " + to, "Daily rollups rebuilt successfully");
+    }
+
+    private void rebuildDays(LocalDate from, LocalDate to) {
+        // The lock keeps the catch-up job from adding rows to these days while they are recomputed
+        RollupWatermark watermark = lockWatermark();
+        jdbcTemplate.update(DELETE_RANGE_SQL, Date.valueOf(from), Date.valueOf(to));
+        Object[] args = {Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.plusDays(1).atStartOfDay()),
+                Timestamp.valueOf(watermark.getLastTransactionDate()), Timestamp.valueOf(watermark.getLastTransactionDate()),
+                watermark.getLastTransactionId()};
+        jdbcTemplate.update(REBUILD_ACCOUNTS_SQL, args);
+        jdbcTemplate.update(REBUILD_PLATFORM_SQL, args);
+    }
+
+    private RollupWatermark lockWatermark() {
+        return rollupWatermarkRepository.findForUpdate(WATERMARK)
+                .orElseGet(() -> rollupWatermarkRepository.saveAndFlush(new RollupWatermark(WATERMARK, START_OF_TIME, 0L, LocalDateTime.now())));
+    }
+
+    private static void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new BadRequestException("A valid from and to date are required");
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class LedgerRow {
+        private final Long id;
+        private final LocalDateTime transactionDate;
+        private final TransactionType transactionType;
+        private final Money amount;
+        private final Long userId;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class RollupKey {
+        private final LocalDate day;
+        private final Long userId;
+        private final TransactionType transactionType;
+    }
+
+    private static class Total {
+        private long amount;  // Minor units
+        private long count;
+
+        void add(Money value) {
+            amount = Math.addExact(amount, value.getMinorUnits());
+            count++;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.fintech.service;
+
+import com.fintech.event.DomainEventConsumer;
+import com.fintech.event.PublishedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded multi-producer ring buffer with one thread per consumer. Producers claim slots with a CAS on the
+ * cursor and never wait: when a slot is still unread by the slowest consumer the offer fails, and the outbox
+ * replays those events later. Each consumer reads every slot the producers have finished writing in one
+ * batch. The acknowledger only reads slots every consumer has passed, and slots are reused once it has.
+ *
+ * A consumer that throws is handed the same batch again after a growing pause, up to retry-attempts times.
+ * If it still fails its events are marked failed and the consumer moves on; the acknowledger leaves failed
+ * events unpublished, so the outbox replays them to every consumer once their claim times out.
+ */
+@Slf4j
+class DomainEventBus {
+    private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long JOIN_TIMEOUT_MS = 5000;
+
+    private final int capacity;
+    private final int mask;
+    private final int maxBatchSize;
+    private final int retryAttempts;
+    private final long retryBackoffNanos;
+    private final AtomicReferenceArray<PublishedEvent> entries;
+    // The sequence last written to each slot, so consumers can tell a finished write from a claimed slot
+    private final AtomicLongArray writtenSequences;
+    // The sequence last given up on in each slot by some consumer, so the acknowledger can leave it unpublished
+    private final AtomicLongArray failedSequences;
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final List<Worker> consumers = new ArrayList<>();
+    private final Worker acknowledger;
+    private volatile boolean running = true;
+
+    DomainEventBus(int capacity, int maxBatchSize, int retryAttempts, long retryBackoffMs, List<DomainEventConsumer> consumers,
+                   DomainEventConsumer acknowledger, MeterRegistry meterRegistry) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Event bus capacity must be a power of two");
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.maxBatchSize = maxBatchSize;
+        this.retryAttempts = retryAttempts;
+        this.retryBackoffNanos = TimeUnit.MILLISECONDS.toNanos(retryBackoffMs);
+        this.entries = new AtomicReferenceArray<>(capacity);
+        this.writtenSequences = new AtomicLongArray(capacity);
+        this.failedSequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            writtenSequences.set(i, -1);
+            failedSequences.set(i, -1);
+        }
+        for (DomainEventConsumer consumer : consumers) {
+            this.consumers.add(new Worker(consumer, false, meterRegistry));
+        }
+        this.acknowledger = new Worker(acknowledger, true, meterRegistry);
+    }
+
+    void start() {
+        consumers.forEach(worker -> worker.thread.start());
+        acknowledger.thread.start();
+    }
+
+    void stop() {
+        running = false;
+        consumers.forEach(worker -> LockSupport.unpark(worker.thread));
+        LockSupport.unpark(acknowledger.thread);
+        try {
+            for (Worker worker : consumers) {
+                worker.thread.join(JOIN_TIMEOUT_MS);
+            }
+            acknowledger.thread.join(JOIN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Puts the events on the bus in order, or none of them if there is no room.
+     */
+    boolean offer(List<PublishedEvent> events) {
+        int count = events.size();
+        if (count == 0) {
+            return true;
+        }
+        long first;
+        long last;
+        do {
+            first = cursor.get() + 1;
+            last = first + count - 1;
+            // Every slot the acknowledger has passed is free; it is always the furthest behind
+            if (last - capacity > acknowledger.sequence.get()) {
+                return false;
+            }
+        } while (!cursor.compareAndSet(first - 1, last));
+        for (int i = 0; i < count; i++) {
+            long sequence = first + i;
+            int slot = (int) (sequence & mask);
+            entries.set(slot, events.get(i));
+            writtenSequences.set(slot, sequence);
+        }
+        return true;
+    }
+
+    private long minConsumerSequence() {
+        long min = Long.MAX_VALUE;
+        for (Worker worker : consumers) {
+            min = Math.min(min, worker.sequence.get());
+        }
+        return min;
+    }
+
+    private class Worker implements Runnable {
+        private final DomainEventConsumer consumer;
+        private final boolean last;
+        private final AtomicLong sequence = new AtomicLong(-1);  // The last slot this worker is done with
+        private final Counter retriedCounter;
+        private final Counter failedCounter;
+        private final Thread thread;
+
+        Worker(DomainEventConsumer consumer, boolean last, MeterRegistry meterRegistry) {
+            this.consumer = consumer;
+            this.last = last;
+            this.retriedCounter = meterRegistry.counter("domain.events.retried", "consumer", consumer.getName());
+            this.failedCounter = meterRegistry.counter("domain.events.failed", "consumer", consumer.getName());
+            Gauge.builder("domain.events.lag", this, worker -> cursor.get() - worker.sequence.get())
+                    .tag("consumer", consumer.getName())
+                    .description("Events on the bus this consumer has not handled yet")
+                    .register(meterRegistry);
+            this.thread = new Thread(this, "domain-event-" + consumer.getName());
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long idleNanos = 0;
+            while (running) {
+                long next = sequence.get() + 1;
+                long available = last && !consumers.isEmpty() ? minConsumerSequence() : highestWritten(next);
+                if (available < next) {
+                    // Back off from spinning to sleeps of up to a millisecond while the bus is quiet
+                    idleNanos = Math.min(Math.max(idleNanos * 2, 1000), MAX_IDLE_NANOS);
+                    LockSupport.parkNanos(idleNanos);
+                    continue;
+                }
+                idleNanos = 0;
+                long end = Math.min(available, next + maxBatchSize - 1);
+                List<PublishedEvent> batch = new ArrayList<>((int) (end - next + 1));
+                for (long s = next; s <= end; s++) {
+                    // Events some consumer gave up on stay unpublished, so they are replayed
+                    if (!last || failedSequences.get((int) (s & mask)) != s) {
+                        batch.add(entries.get((int) (s & mask)));
+                    }
+                }
+                if (!batch.isEmpty() && !handle(batch)) {
+                    // Marked before the sequence moves on, so the acknowledger sees it when it reaches these slots
+                    for (long s = next; s <= end; s++) {
+                        failedSequences.set((int) (s & mask), s);
+                    }
+                }
+                sequence.set(end);
+            }
+        }
+
+        private boolean handle(List<PublishedEvent> batch) {
+            long backoffNanos = retryBackoffNanos;
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    consumer.onEvents(batch);
+                    return true;
+                } catch (RuntimeException e) {
+                    if (attempt > retryAttempts || !running) {
+                        // A consumer that cannot handle an event must not hold up the bus for good
+                        failedCounter.increment(batch.size());
+                        log.error("Domain event consumer {} failed on events {} to {}, leaving them to the outbox replay",
+                                consumer.getName(), batch.get(0).getOutboxId(), batch.get(batch.size() - 1).getOutboxId(), e);
+                        return false;
+                    }
+                    retriedCounter.increment(batch.size());
+                    log.warn("Domain event consumer {} failed on events {} to {}, retrying in {} ms", consumer.getName(),
+                            batch.get(0).getOutboxId(), batch.get(batch.size() - 1).getOutboxId(),
+                            TimeUnit.NANOSECONDS.toMillis(backoffNanos), e);
+                    LockSupport.parkNanos(backoffNanos);
+                    backoffNanos *= 2;
+                }
+            }
+        }
+
+        private long highestWritten(long next) {
+            long claimed = cursor.get();
+            long s = next;
+            while (s <= claimed && writtenSequences.get((int) (s & mask)) == s) {
+                s++;
+            }
+            return s - 1;
+        }
+    }
+}
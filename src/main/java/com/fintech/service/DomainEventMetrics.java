@@ -0,0 +1,28 @@
+package com.fintech.service;
+
+import com.fintech.event.DomainEventConsumer;
+import com.fintech.event.PublishedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Counts the events on the bus by type, which also shows the bus is moving
+@Component
+@RequiredArgsConstructor
+public class DomainEventMetrics implements DomainEventConsumer {
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public String getName() {
+        return "metrics";
+    }
+
+    @Override
+    public void onEvents(List<PublishedEvent> events) {
+        for (PublishedEvent published : events) {
+            meterRegistry.counter("domain.events", "type", published.getEvent().getClass().getSimpleName()).increment();
+        }
+    }
+}
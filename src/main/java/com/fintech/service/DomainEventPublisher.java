@@ -0,0 +1,236 @@
+package com.fintech.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintech.event.DomainEvent;
+import com.fintech.event.DomainEventConsumer;
+import com.fintech.event.LoanApplied;
+import com.fintech.event.LoanDisbursed;
+import com.fintech.event.LoanStatusChanged;
+import com.fintech.event.PublishedEvent;
+import com.fintech.event.TransactionApplied;
+import com.fintech.model.OutboxEvent;
+import com.fintech.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Publishes ledger and loan events through a transactional outbox. The event is written to outbox_event in
+ * the caller's transaction and put on the in-process {@link DomainEventBus} only after that transaction
+ * commits, so a rolled back change never emits one. Once every consumer has handled an event its row is
+ * marked published.
+ *
+ * Rows left unpublished for claim-timeout-ms, because the node stopped, its bus was full or a consumer kept
+ * failing on them, are claimed by
+ * whichever node looks first and replayed onto its bus. Published rows are deleted after retention-ms.
+ */
+@Slf4j
+@Service
+public class DomainEventPublisher {
+    private static final Map<String, Class<? extends DomainEvent>> EVENT_TYPES = Stream.of(
+                    TransactionApplied.class, LoanApplied.class, LoanStatusChanged.class, LoanDisbursed.class)
+            .collect(Collectors.toMap(Class::getSimpleName, Function.identity()));
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final DomainEventBus bus;
+    private final long claimTimeoutMs;
+    private final long replayIntervalMs;
+    private final int replayBatchSize;
+    private final long retentionMs;
+    private final Counter publishedCounter;
+    private final Counter overflowCounter;
+    private final Counter replayedCounter;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "domain-event-replayer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DomainEventPublisher(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper,
+                                List<DomainEventConsumer> consumers, MeterRegistry meterRegistry,
+                                @Value("${fintech.events.bus-size:65536}") int busSize,
+                                @Value("${fintech.events.max-batch-size:256}") int maxBatchSize,
+                                @Value("${fintech.events.retry-attempts:3}") int retryAttempts,
+                                @Value("${fintech.events.retry-backoff-ms:100}") long retryBackoffMs,
+                                @Value("${fintech.events.claim-timeout-ms:60000}") long claimTimeoutMs,
+                                @Value("${fintech.events.replay-interval-ms:10000}") long replayIntervalMs,
+                                @Value("${fintech.events.replay-batch-size:1000}") int replayBatchSize,
+                                @Value("${fintech.events.retention-ms:86400000}") long retentionMs) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+        this.claimTimeoutMs = claimTimeoutMs;
+        this.replayIntervalMs = replayIntervalMs;
+        this.replayBatchSize = replayBatchSize;
+        this.retentionMs = retentionMs;
+        this.publishedCounter = meterRegistry.counter("domain.events.published");
+        this.overflowCounter = meterRegistry.counter("domain.events.overflow");
+        this.replayedCounter = meterRegistry.counter("domain.events.replayed");
+        this.bus = new DomainEventBus(busSize, maxBatchSize, retryAttempts, retryBackoffMs, consumers, new Acknowledger(), meterRegistry);
+    }
+
+    // Started once the migrations have run, since replay reads outbox_event
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        bus.start();
+        executor.scheduleWithFixedDelay(this::replay, 0, replayIntervalMs, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::purge, retentionMs, retentionMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+        bus.stop();
+    }
+
+    public void publish(DomainEvent... events) {
+        publishAll(List.of(events));
+    }
+
+    /**
+     * Writes the events to the outbox in the current transaction; they reach the bus once it commits.
+     */
+    public void publishAll(List<? extends DomainEvent> events) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Domain events can only be published inside a transaction");
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> rows = new ArrayList<>(events.size());
+        for (DomainEvent event : events) {
+            rows.add(new OutboxEvent(null, event.getClass().getSimpleName(), event.getAggregateId(), toJson(event), now, now, null));
+        }
+        // Ids come from the pooled sequence, so they are known here and the inserts are batched at flush
+        outboxEventRepository.saveAll(rows);
+        List<PublishedEvent> published = new ArrayList<>(events.size());
+        for (int i = 0; i < rows.size(); i++) {
+            published.add(new PublishedEvent(rows.get(i).getId(), events.get(i)));
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (bus.offer(published)) {
+                    publishedCounter.increment(published.size());
+                } else {
+                    // Left in the outbox for the replayer
+                    overflowCounter.increment(published.size());
+                }
+            }
+        });
+    }
+
+    private String toJson(DomainEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + event.getClass().getSimpleName(), e);
+        }
+    }
+
+    private DomainEvent fromJson(OutboxEvent row) {
+        Class<? extends DomainEvent> type = EVENT_TYPES.get(row.getEventType());
+        if (type == null) {
+            log.warn("Outbox event {} has unknown type {}", row.getId(), row.getEventType());
+            return null;
+        }
+        try {
+            return objectMapper.readValue(row.getPayload(), type);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not read outbox event {}", row.getId(), e);
+            return null;
+        }
+    }
+
+    private void replay() {
+        try {
+            List<OutboxEvent> stale;
+            do {
+                LocalDateTime now = LocalDateTime.now();
+                LocalDateTime claimedBefore = now.minusNanos(claimTimeoutMs * 1_000_000);
+                stale = outboxEventRepository.findUnpublished(claimedBefore, PageRequest.of(0, replayBatchSize));
+                List<PublishedEvent> claimed = new ArrayList<>(stale.size());
+                for (OutboxEvent row : stale) {
+                    // Rows that cannot be read are claimed too, so they come round again only once per claim timeout
+                    if (outboxEventRepository.reclaim(row.getId(), claimedBefore, now) == 1) {
+                        DomainEvent event = fromJson(row);
+                        if (event != null) {
+                            claimed.add(new PublishedEvent(row.getId(), event));
+                        }
+                    }
+                }
+                // One at a time, so a batch published in one go that never fitted on the bus still gets through.
+                // This thread can wait for room, but not so long that the claim runs out and another node replays them too.
+                long deadline = System.currentTimeMillis() + claimTimeoutMs / 2;
+                int replayed = 0;
+                while (replayed < claimed.size() && System.currentTimeMillis() < deadline) {
+                    if (bus.offer(List.of(claimed.get(replayed)))) {
+                        replayed++;
+                    } else {
+                        Thread.sleep(1);
+                    }
+                }
+                replayedCounter.increment(replayed);
+                if (replayed > 0) {
+                    log.info("Replayed {} domain events from the outbox", replayed);
+                }
+                if (replayed < claimed.size()) {
+                    // Claimed but not on the bus; they are picked up again once the claim times out
+                    overflowCounter.increment(claimed.size() - replayed);
+                    return;
+                }
+            } while (stale.size() == replayBatchSize);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // An exception here would cancel the schedule for good
+            log.warn("Could not replay domain events from the outbox", e);
+        }
+    }
+
+    private void purge() {
+        try {
+            outboxEventRepository.deletePublishedBefore(LocalDateTime.now().minusNanos(retentionMs * 1_000_000));
+        } catch (RuntimeException e) {
+            log.warn("Could not purge published domain events", e);
+        }
+    }
+
+    // Runs behind every consumer and records the events they have all handled
+    private class Acknowledger implements DomainEventConsumer {
+        @Override
+        public String getName() {
+            return "outbox";
+        }
+
+        @Override
+        public void onEvents(List<PublishedEvent> events) {
+            List<Long> ids = new ArrayList<>(events.size());
+            for (PublishedEvent event : events) {
+                ids.add(event.getOutboxId());
+            }
+            outboxEventRepository.markPublished(ids, LocalDateTime.now());
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.fintech.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fintech.dto.ResponseDto;
+import com.fintech.exception.BadRequestException;
+import com.fintech.model.IdempotencyRecord;
+import com.fintech.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs a money-moving request at most once per Idempotency-Key. The key is claimed by inserting its
+ * record in the same transaction as the ledger change, so the response is stored exactly when the
+ * change commits and a failed attempt leaves the key free for a retry. Recent responses are kept in a
+ * bounded LRU so replays do not reach the database, and duplicates arriving while the first attempt
+ * is still running wait for it instead of racing it.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader responseReader;
+    private final ObjectMapper objectMapper;
+    private final Map<String, StoredResponse> recentResponses;
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Counter replayedCounter;
+    private final long retentionHours;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${fintech.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${fintech.idempotency.retention-hours:24}") long retentionHours) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        // Amounts are replayed exactly as they were first written, trailing zeros included
+        this.responseReader = objectMapper.readerFor(ResponseDto.class).with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        this.recentResponses = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+        this.replayedCounter = meterRegistry.counter("idempotency.requests.replayed");
+        this.retentionHours = retentionHours;
+    }
+
+    public <T> ResponseEntity<ResponseDto<T>> execute(String idempotencyKey, String scope, Object request,
+                                                      Supplier<ResponseEntity<ResponseDto<T>>> action) {
+        String key = scopedKey(idempotencyKey, scope);
+        if (key == null) {
+            return action.get();
+        }
+        String requestHash = hash(request);
+
+        StoredResponse recent = recentResponses.get(key);
+        if (recent != null && !recent.isExpired(retentionHours)) {
+            return replay(recent, requestHash);
+        }
+
+        CompletableFuture<StoredResponse> attempt = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, attempt);
+        if (running != null) {
+            return replay(awaitAttempt(running), requestHash);
+        }
+        try {
+            Execution<T> execution = executeOnce(key, requestHash, action);
+            recentResponses.put(key, execution.stored);
+            attempt.complete(execution.stored);
+            return execution.response != null ? execution.response : replay(execution.stored, requestHash);
+        } catch (RuntimeException e) {
+            attempt.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, attempt);
+        }
+    }
+
+    /**
+     * The stored form of a client key for one endpoint and caller, or null when the request carries none.
+     * Resolved on the request thread, since the caller comes from its security context.
+     */
+    public String scopedKey(String idempotencyKey, String scope) {
+        if (!StringUtils.hasText(idempotencyKey)) {
+            return null;
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        return scope + ":" + currentPrincipalName() + ":" + idempotencyKey;
+    }
+
+    /**
+     * Runs one part of a request that commits in several transactions, such as a chunk of a bulk batch, at most
+     * once per key. The part's record is inserted in the transaction that applies it, so a retry of the whole
+     * request replays the parts that committed and applies only the rest. Parts are not kept in the in-memory
+     * cache; a concurrent duplicate waits on the record's insert and then replays what the first one stored.
+     */
+    public <T> T executePart(String key, Object request, TypeReference<T> resultType, Supplier<T> action) {
+        String requestHash = hash(request);
+        Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findById(key).filter(record -> record.getResponseBody() != null);
+        if (stored.isPresent()) {
+            return replayPart(stored.get(), requestHash, resultType);
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                IdempotencyRecord record = idempotencyRecordRepository.saveAndFlush(
+                        new IdempotencyRecord(key, requestHash, null, null, LocalDateTime.now(), false));
+                T result = action.get();
+                record.setResponseBody(writeBody(result));
+                record.setResponseStatus(HttpStatus.OK.value());
+                // The action may have cleared the persistence context, so the record is merged back in
+                idempotencyRecordRepository.save(record);
+                return result;
+            });
+        } catch (DataIntegrityViolationException e) {
+            IdempotencyRecord record = idempotencyRecordRepository.findById(key)
+                    .filter(found -> found.getResponseBody() != null)
+                    .orElseThrow(() -> e);
+            return replayPart(record, requestHash, resultType);
+        }
+    }
+
+    private <T> T replayPart(IdempotencyRecord record, String requestHash, TypeReference<T> resultType) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new BadRequestException(HEADER + " has already been used for a different request");
+        }
+        replayedCounter.increment();
+        try {
+            return objectMapper.readValue(record.getResponseBody(), resultType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response could not be read", e);
+        }
+    }
+
+    private <T> Execution<T> executeOnce(String key, String requestHash, Supplier<ResponseEntity<ResponseDto<T>>> action) {
+        try {
+            return transactionTemplate.execute(status -> {
+                // Another node holding the same key blocks this insert until it commits, then fails it as a duplicate
+                IdempotencyRecord record = idempotencyRecordRepository.saveAndFlush(
+                        new IdempotencyRecord(key, requestHash, null, null, LocalDateTime.now(), false));
+                ResponseEntity<ResponseDto<T>> response = action.get();
+                record.setResponseBody(writeBody(response.getBody()));
+                record.setResponseStatus(response.getStatusCodeValue());
+                return new Execution<>(response, StoredResponse.of(record));
+            });
+        } catch (DataIntegrityViolationException e) {
+            IdempotencyRecord stored = idempotencyRecordRepository.findById(key)
+                    .filter(record -> record.getResponseBody() != null)
+                    .orElseThrow(() -> e);
+            return new Execution<>(null, StoredResponse.of(stored));
+        }
+    }
+
+    private static StoredResponse awaitAttempt(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            // The duplicate sees the same outcome as the attempt it waited for
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<ResponseDto<T>> replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash.equals(requestHash)) {
+            throw new BadRequestException(HEADER + " has already been used for a different request");
+        }
+        replayedCounter.increment();
+        try {
+            ResponseDto<T> body = responseReader.readValue(stored.body);
+            return ResponseEntity.status(stored.status).header("Idempotent-Replayed", "true").body(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response could not be read", e);
+        }
+    }
+
+    private String writeBody(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response could not be stored for replay", e);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Request could not be fingerprinted", e);
+        }
+    }
+
+    // Keys are per caller, so two clients that happen to pick the same key never see each other's responses
+    private static String currentPrincipalName() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? "anonymous" : authentication.getName();
+    }
+
+    @Scheduled(fixedDelayString = "${fintech.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int purged = idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency records", purged);
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Execution<T> {
+        private final ResponseEntity<ResponseDto<T>> response;
+        private final StoredResponse stored;
+    }
+
+    @AllArgsConstructor
+    private static class StoredResponse {
+        private final String requestHash;
+        private final String body;
+        private final int status;
+        private final LocalDateTime createdDate;
+
+        static StoredResponse of(IdempotencyRecord record) {
+            return new StoredResponse(record.getRequestHash(), record.getResponseBody(),
+                    record.getResponseStatus(), record.getCreatedDate());
+        }
+
+        boolean isExpired(long retentionHours) {
+            return createdDate.isBefore(LocalDateTime.now().minusHours(retentionHours));
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package com.fintech.service;
 
+import com.fintech.dto.JwtPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Map;
+import java.util.Optional;
 
 public interface JWTService {
     String extractUsername(String token);
     String generateToken(UserDetails userDetails);
     String generateRefreshToken(Map<String, Object> extraClaim, UserDetails userDetails);
     boolean isTokenValid(String token, UserDetails userDetails);
+    Optional<JwtPrincipal> parseToken(String token);
 }
@@ -1,61 +1,110 @@
 package com.fintech.service;
 
 
+import com.fintech.dto.JwtPrincipal;
+import com.fintech.model.Admin;
+import com.fintech.model.UsersAccount;
+import com.fintech.model.enums.AppStatus;
+import com.fintech.model.enums.Role;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.Optional;
 
 @Service
 public class JWTServiceImpl implements JWTService {
+    private static final String CLAIM_PRINCIPAL_ID = "uid";
+    private static final String CLAIM_ROLE = "role";
+    private static final String CLAIM_STATUS = "status";
+    // iat is in whole seconds, too coarse to tell a token issued just after a revocation from one just before
+    private static final String CLAIM_ISSUED_AT_MILLIS = "iat_ms";
+
+    // Decoding the secret and building the parser is done once, not per request
+    private final Key signKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode("413F699798956958744589648759667000t75443568884459898459845978479459"));
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(signKey).build();
+
     public String generateToken(UserDetails userDetails) {
-        return Jwts.builder().setSubject(userDetails.getUsername()).
-                setIssuedAt(new Date(System.currentTimeMillis())).
-                setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24)).
-                signWith(getSignKey(), SignatureAlgorithm.HS256).compact();
+        long now = System.currentTimeMillis();
+        return Jwts.builder().setClaims(principalClaims(userDetails, now)).setSubject(userDetails.getUsername()).
+                setIssuedAt(new Date(now)).
+                setExpiration(new Date(now + 1000 * 60 * 60 * 24)).
+                signWith(signKey, SignatureAlgorithm.HS256).compact();
     }
 
     public String generateRefreshToken(Map<String, Object> extraClaim, UserDetails userDetails) {
-        return Jwts.builder().setClaims(extraClaim).setSubject(userDetails.getUsername()).
-                setIssuedAt(new Date(System.currentTimeMillis())).
-                setExpiration(new Date(System.currentTimeMillis() + 604800000 )).
-                signWith(getSignKey(), SignatureAlgorithm.HS256).compact();
+        long now = System.currentTimeMillis();
+        Map<String, Object> claims = principalClaims(userDetails, now);
+        claims.putAll(extraClaim);
+        return Jwts.builder().setClaims(claims).setSubject(userDetails.getUsername()).
+                setIssuedAt(new Date(now)).
+                setExpiration(new Date(now + 604800000 )).
+                signWith(signKey, SignatureAlgorithm.HS256).compact();
     }
 
+    private Map<String, Object> principalClaims(UserDetails userDetails, long issuedAtMillis) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_ISSUED_AT_MILLIS, issuedAtMillis);
+        if (userDetails instanceof UsersAccount) {
+            UsersAccount usersAccount = (UsersAccount) userDetails;
+            claims.put(CLAIM_PRINCIPAL_ID, usersAccount.getId());
+            claims.put(CLAIM_ROLE, Role.USER.name());
+            claims.put(CLAIM_STATUS, usersAccount.getAccountStatus().name());
+        } else if (userDetails instanceof Admin) {
+            Admin admin = (Admin) userDetails;
+            claims.put(CLAIM_PRINCIPAL_ID, admin.getId());
+            claims.put(CLAIM_ROLE, Role.ADMIN.name());
+            claims.put(CLAIM_STATUS, admin.getAccountStatus().name());
+        }
+        return claims;
+    }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsesolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsesolver.apply(claims);
+    /**
+     * Verifies the signature and expiry once and returns the principal carried in the claims, or empty
+     * when the token is not valid. Tokens issued before the principal claims existed come back with a
+     * null id, role and status, and those without iat_ms with the issue time rounded down to the second.
+     */
+    public Optional<JwtPrincipal> parseToken(String token) {
+        final Claims claims;
+        try {
+            claims = extractAllClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        Number principalId = claims.get(CLAIM_PRINCIPAL_ID, Number.class);
+        String role = claims.get(CLAIM_ROLE, String.class);
+        String status = claims.get(CLAIM_STATUS, String.class);
+        Number issuedAtMillis = claims.get(CLAIM_ISSUED_AT_MILLIS, Number.class);
+        return Optional.of(new JwtPrincipal(
+                principalId == null ? null : principalId.longValue(),
+                claims.getSubject(),
+                role == null ? null : Role.valueOf(role),
+                status == null ? null : AppStatus.valueOf(status),
+                issuedAtMillis == null ? claims.getIssuedAt() : new Date(issuedAtMillis.longValue())));
     }
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return extractAllClaims(token).getSubject();
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder().setSigningKey(getSignKey()).build().parseClaimsJws(token).getBody();
-    }
-
-    private Key getSignKey() {
-        byte[] key = Decoders.BASE64.decode("413F699798956958744589648759667000t75443568884459898459845978479459");
-        return Keys.hmacShaKeyFor(key);
+        return parser.parseClaimsJws(token).getBody();
     }
 
+    // The parser already rejects expired tokens, so a single parse covers both checks
     public boolean isTokenValid(String token, UserDetails userDetails){
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
-    }
-
-    private boolean isTokenExpired(String token){
-        return extractClaim(token,Claims::getExpiration).before(new Date());
+        return parseToken(token)
+                .map(principal -> principal.getEmail().equals(userDetails.getUsername()))
+                .orElse(false);
     }
 }
@@ -0,0 +1,150 @@
+package com.fintech.service;
+
+import com.fintech.config.Auditable;
+import com.fintech.dto.ResponseDto;
+import com.fintech.exception.BadRequestException;
+import com.fintech.model.Loan;
+import com.fintech.model.LoanInstallment;
+import com.fintech.model.Money;
+import com.fintech.model.enums.LoanStatus;
+import com.fintech.repository.LoanInstallmentRepository;
+import com.fintech.repository.LoanRepository;
+import com.fintech.util.AmortizationCalculator;
+import com.fintech.util.AmortizationCalculator.Schedule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.fintech.dto.ApiResponse.ok;
+
+/**
+ * Persists the monthly installment schedule of a loan, worked out by {@link AmortizationCalculator}.
+ */
+@Service
+public class LoanScheduleService {
+    // Loans whose repayments are still ahead of them
+    private static final Set<LoanStatus> SCHEDULED_STATUSES = EnumSet.of(LoanStatus.APPROVED, LoanStatus.DISBURSED, LoanStatus.OUTSTANDING);
+
+    private final LoanRepository loanRepository;
+    private final LoanInstallmentRepository loanInstallmentRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchThreads;
+    private final int batchSize;
+
+    public LoanScheduleService(LoanRepository loanRepository, LoanInstallmentRepository loanInstallmentRepository,
+                               EntityManager entityManager, PlatformTransactionManager transactionManager,
+                               @Value("${fintech.schedule.batch-threads:4}") int batchThreads,
+                               @Value("${fintech.schedule.batch-size:500}") int batchSize) {
+        this.loanRepository = loanRepository;
+        this.loanInstallmentRepository = loanInstallmentRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchThreads = batchThreads;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Replaces the loan's schedule, with the first installment due a month after the start date.
+     * Runs in the caller's transaction.
+     */
+    public List<LoanInstallment> generateSchedule(Loan loan, LocalDate startDate) {
+        loanInstallmentRepository.deleteAllByLoanIds(List.of(loan.getId()));
+        if (!isSchedulable(loan)) {
+            return List.of();
+        }
+        List<LoanInstallment> installments = new ArrayList<>(loan.getTenure());
+        addInstallments(loan, startDate, new Schedule(loan.getTenure()), installments);
+        return loanInstallmentRepository.saveAll(installments);
+    }
+
+    public ResponseEntity<ResponseDto<List<LoanInstallment>>> getSchedule(Long loanId) {
+        if (!loanRepository.existsById(loanId)) {
+            throw new BadRequestException("Loan not found");
+        }
+        return ok(loanInstallmentRepository.findAllByLoan_IdOrderByInstallmentNumber(loanId), "Loan schedule fetched successfully");
+    }
+
+    /**
+     * Regenerates the schedule of every approved, disbursed or outstanding loan. Loans are split into
+     * batches that are worked on in parallel, each batch in its own transaction.
+     */
+    @Auditable(action = "LOAN_SCHEDULES_REGENERATED", details = "'Schedules regenerated for ' + #result.body.data + ' loans'")
+    public ResponseEntity<ResponseDto<Integer>> regenerateAllSchedules() {
+        List<Long> loanIds = loanRepository.findIdsByStatusIn(SCHEDULED_STATUSES);
+        ExecutorService executor = Executors.newFixedThreadPool(batchThreads);
+        try {
+            List<Future<Integer>> batches = new ArrayList<>();
+            for (int from = 0; from < loanIds.size(); from += batchSize) {
+                List<Long> batch = loanIds.subList(from, Math.min(from + batchSize, loanIds.size()));
+                batches.add(executor.submit(() -> transactionTemplate.execute(status -> regenerateBatch(batch))));
+            }
+            int regenerated = 0;
+            for (Future<Integer> batch : batches) {
+                regenerated += batch.get();
+            }
+            return ok(regenerated, "Loan schedules regenerated successfully");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Schedule regeneration was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Schedule regeneration failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int regenerateBatch(List<Long> loanIds) {
+        loanInstallmentRepository.deleteAllByLoanIds(loanIds);
+        Schedule schedule = new Schedule(12);
+        List<LoanInstallment> installments = new ArrayList<>();
+        int regenerated = 0;
+        for (Loan loan : loanRepository.findAllById(loanIds)) {
+            if (!isSchedulable(loan)) {
+                continue;
+            }
+            addInstallments(loan, startDate(loan), schedule, installments);
+            regenerated++;
+        }
+        loanInstallmentRepository.saveAll(installments);
+        entityManager.flush();
+        entityManager.clear();
+        return regenerated;
+    }
+
+    // Loans from before tenure was validated can have no usable terms
+    private static boolean isSchedulable(Loan loan) {
+        return loan.getTenure() > 0 && loan.getLoanAmount() != null && loan.getLoanAmount().isPositive()
+                && loan.getInterestRate() != null;
+    }
+
+    private static LocalDate startDate(Loan loan) {
+        if (loan.getDisbursementDate() != null) {
+            return loan.getDisbursementDate().toLocalDate();
+        }
+        return loan.getCreatedDate() != null ? loan.getCreatedDate().toLocalDate() : LocalDate.now();
+    }
+
+    private static void addInstallments(Loan loan, LocalDate startDate, Schedule schedule, List<LoanInstallment> installments) {
+        AmortizationCalculator.generate(loan.getRepaymentMethod(), loan.getLoanAmount().getMinorUnits(),
+                AmortizationCalculator.toPartsPerMillion(loan.getInterestRate()), loan.getTenure(), schedule);
+        for (int i = 0; i < schedule.size(); i++) {
+            installments.add(new LoanInstallment(null, loan, i + 1, startDate.plusMonths(i + 1L),
+                    Money.ofMinor(schedule.principalDue(i)), Money.ofMinor(schedule.interestDue(i)),
+                    Money.ofMinor(schedule.totalDue(i)), Money.ofMinor(schedule.balanceAfter(i))));
+        }
+    }
+}
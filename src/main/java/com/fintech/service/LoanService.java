@@ -1,21 +1,27 @@
 package com.fintech.service;
 
 
+import com.fintech.config.Auditable;
 import com.fintech.dto.ResponseDto;
 import com.fintech.dto.request.LoanRequest;
+import com.fintech.event.LoanApplied;
 import com.fintech.exception.BadRequestException;
 import com.fintech.model.Loan;
+import com.fintech.model.Money;
 import com.fintech.model.UsersAccount;
 import com.fintech.model.enums.AppStatus;
 import com.fintech.model.enums.LoanStatus;
+import com.fintech.model.enums.RepaymentMethod;
 import com.fintech.repository.LoanRepository;
-import com.fintech.repository.UserAccountRepository;
+import com.fintech.util.AmortizationCalculator;
+import com.fintech.util.AmortizationCalculator.Schedule;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -27,16 +33,31 @@ import static com.fintech.dto.ApiResponse.ok;
 @RequiredArgsConstructor
 public class LoanService {
     private final LoanRepository loanRepository;
-    private final UserAccountRepository userAccountRepository;
+    private final AccountLookupService accountLookupService;
+    private final DomainEventPublisher domainEventPublisher;
 
+    private static final Money SMALL_LOAN_LIMIT = Money.ofMajor(10000);
+
+    @Auditable(action = "LOAN_APPLICATION", details = "'Loan of ' + #loanRequest.loanAmount + ' for ' + #loanRequest.tenure + ' months'", userId = "#loanRequest.userId")
+    @Transactional
+    @Timed("fintech.service")
     public ResponseEntity<ResponseDto<Loan>> applyForLoan(LoanRequest loanRequest) {
-        Optional<UsersAccount> usersAccountOptional = userAccountRepository.findById(loanRequest.getUserId());
+        Optional<UsersAccount> usersAccountOptional = accountLookupService.findUser(loanRequest.getUserId());
         if (usersAccountOptional.isEmpty()) {
             throw new BadRequestException("Account does not exist");
         }
+        if (loanRequest.getLoanAmount() == null || !loanRequest.getLoanAmount().isPositive()) {
+            throw new BadRequestException("Loan amount must be positive");
+        }
+        if (loanRequest.getTenure() <= 0) {
+            throw new BadRequestException("Loan tenure must be at least one month");
+        }
+        RepaymentMethod repaymentMethod = parseRepaymentMethod(loanRequest.getRepaymentMethod());
         BigDecimal interestRate = calculateInterestRate(loanRequest.getLoanAmount(), loanRequest.getTenure());
-        BigDecimal totalAmount = loanRequest.getLoanAmount().add(loanRequest.getLoanAmount()
-                .multiply(interestRate).divide(BigDecimal.valueOf(100), RoundingMode.HALF_UP));
+        // The total is what the installment schedule will add up to, so both always agree
+        Schedule schedule = AmortizationCalculator.generate(repaymentMethod, loanRequest.getLoanAmount().getMinorUnits(),
+                AmortizationCalculator.toPartsPerMillion(interestRate), loanRequest.getTenure());
+        Money totalAmount = loanRequest.getLoanAmount().plus(Money.ofMinor(schedule.totalInterest()));
         UsersAccount usersAccount = usersAccountOptional.get();
         if (usersAccount.getAccountStatus() == AppStatus.INACTIVE) {
             throw new BadRequestException("User account is inactive. Loan application cannot proceed.");
@@ -56,14 +77,28 @@ public class LoanService {
         loan.setTenure(loanRequest.getTenure());
         loan.setInterestRate(interestRate);
         loan.setTotalAmount(totalAmount);
+        loan.setRepaymentMethod(repaymentMethod);
         loan.setStatus(LoanStatus.APPLIED);
         loan.setCreatedDate(LocalDateTime.now());
         loanRepository.save(loan);
+        domainEventPublisher.publish(new LoanApplied(loan.getId(), usersAccount.getId(), loan.getLoanAmount(), totalAmount,
+                interestRate, loan.getTenure(), repaymentMethod, loan.getCreatedDate()));
         return ok(loan,"Loan applied successfully");
     }
 
-    public BigDecimal calculateInterestRate(BigDecimal loanAmount, int tenure) {
-        if (loanAmount.compareTo(BigDecimal.valueOf(10000)) < 0) {
+    private static RepaymentMethod parseRepaymentMethod(String repaymentMethod) {
+        if (repaymentMethod == null) {
+            return RepaymentMethod.FLAT;
+        }
+        try {
+            return RepaymentMethod.valueOf(repaymentMethod);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Repayment method must be FLAT or REDUCING_BALANCE");
+        }
+    }
+
+    public BigDecimal calculateInterestRate(Money loanAmount, int tenure) {
+        if (loanAmount.isLessThan(SMALL_LOAN_LIMIT)) {
             return BigDecimal.valueOf(5);
         } else if (tenure < 12) {
             return BigDecimal.valueOf(7);
@@ -72,11 +107,15 @@ public class LoanService {
         }
     }
 
+    @Transactional(readOnly = true)
+    @Timed("fintech.service")
     public ResponseEntity<ResponseDto<List<Loan>>> getLoanByUserId(Long userId) {
         List<Loan> loanList = loanRepository.findAllByUser_Id(userId);
         return ok(loanList,"User loans details fetched successfully");
     }
 
+    @Transactional(readOnly = true)
+    @Timed("fintech.service")
     public ResponseEntity<ResponseDto<List<Loan>>> getLoanByStatus(String status) {
         List<Loan> loanList = loanRepository.findAllByStatus(LoanStatus.valueOf(status));
         return ok(loanList,"User loans details with status fetched successfully");
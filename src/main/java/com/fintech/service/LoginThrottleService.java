@@ -0,0 +1,151 @@
+package com.fintech.service;
+
+import com.fintech.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Token buckets on login attempts, one per email and one per client address, taken before the password is
+ * checked. An email bucket holds email-capacity attempts and refills at email-refill-per-minute, which slows
+ * guessing one password; an address bucket does the same for ip-capacity, which slows one client trying many
+ * emails. A successful login refills its email bucket.
+ *
+ * The buckets are split over stripes, each a small LRU map under its own lock, so concurrent logins rarely wait
+ * on each other and the memory a flood of made-up emails can take is bounded: the least recently used bucket of
+ * a full stripe is dropped, which at worst lets that email or address start again with a full bucket.
+ * The state is per node.
+ */
+@Service
+public class LoginThrottleService {
+    private final BucketTable emails;
+    private final BucketTable addresses;
+    private final Counter allowedCounter;
+
+    public LoginThrottleService(MeterRegistry meterRegistry,
+                                @Value("${fintech.login.email-capacity:5}") int emailCapacity,
+                                @Value("${fintech.login.email-refill-per-minute:1}") double emailRefillPerMinute,
+                                @Value("${fintech.login.ip-capacity:20}") int ipCapacity,
+                                @Value("${fintech.login.ip-refill-per-minute:20}") double ipRefillPerMinute,
+                                @Value("${fintech.login.stripes:64}") int stripes,
+                                @Value("${fintech.login.max-keys-per-stripe:4096}") int maxKeysPerStripe) {
+        this.emails = new BucketTable("email", emailCapacity, emailRefillPerMinute, stripes, maxKeysPerStripe, meterRegistry);
+        this.addresses = new BucketTable("ip", ipCapacity, ipRefillPerMinute, stripes, maxKeysPerStripe, meterRegistry);
+        this.allowedCounter = meterRegistry.counter("login.attempts", "outcome", "allowed");
+    }
+
+    /**
+     * Takes one attempt from the address's and the email's buckets, or throws if either is empty.
+     */
+    public void acquire(String email, String clientAddress) {
+        long now = System.nanoTime();
+        addresses.acquire(clientAddress == null ? "" : clientAddress, now);
+        emails.acquire(normalize(email), now);
+        allowedCounter.increment();
+    }
+
+    public void succeeded(String email) {
+        emails.reset(normalize(email));
+    }
+
+    private static String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long updatedNanos;
+    }
+
+    private static final class BucketTable {
+        private final String name;
+        private final double capacity;
+        private final double tokensPerNano;
+        private final Stripe[] stripes;
+        private final Counter throttledCounter;
+
+        BucketTable(String name, int capacity, double refillPerMinute, int stripeCount, int maxKeysPerStripe, MeterRegistry meterRegistry) {
+            if (Integer.bitCount(stripeCount) != 1) {
+                throw new IllegalArgumentException("Login throttle stripes must be a power of two");
+            }
+            this.name = name;
+            this.capacity = capacity;
+            this.tokensPerNano = refillPerMinute / 60e9;
+            this.stripes = new Stripe[stripeCount];
+            for (int i = 0; i < stripeCount; i++) {
+                stripes[i] = new Stripe(maxKeysPerStripe);
+            }
+            this.throttledCounter = meterRegistry.counter("login.attempts", "outcome", "throttled", "key", name);
+            Gauge.builder("login.throttle.keys", this, BucketTable::size)
+                    .tag("key", name)
+                    .description("Emails or client addresses with a login bucket on this node")
+                    .register(meterRegistry);
+        }
+
+        void acquire(String key, long now) {
+            Stripe stripe = stripeFor(key);
+            double missing;
+            synchronized (stripe) {
+                Bucket bucket = stripe.buckets.get(key);
+                if (bucket == null) {
+                    bucket = new Bucket();
+                    bucket.tokens = capacity;
+                    bucket.updatedNanos = now;
+                    stripe.buckets.put(key, bucket);
+                } else {
+                    bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.updatedNanos) * tokensPerNano);
+                    bucket.updatedNanos = now;
+                }
+                if (bucket.tokens >= 1) {
+                    bucket.tokens--;
+                    return;
+                }
+                missing = 1 - bucket.tokens;
+            }
+            throttledCounter.increment();
+            long retryAfterSeconds = Math.max(1, (long) Math.ceil(missing / tokensPerNano / 1e9));
+            throw new TooManyRequestsException("Too many login attempts for this " + name + ", please try again later", retryAfterSeconds);
+        }
+
+        void reset(String key) {
+            Stripe stripe = stripeFor(key);
+            synchronized (stripe) {
+                stripe.buckets.remove(key);
+            }
+        }
+
+        private Stripe stripeFor(String key) {
+            int hash = key.hashCode();
+            return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+        }
+
+        private int size() {
+            int size = 0;
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    size += stripe.buckets.size();
+                }
+            }
+            return size;
+        }
+    }
+
+    private static final class Stripe {
+        private final Map<String, Bucket> buckets;
+
+        Stripe(int maxKeys) {
+            this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    return size() > maxKeys;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.fintech.service;
+
+import com.fintech.dto.JwtPrincipal;
+import com.fintech.model.PrincipalRevocation;
+import com.fintech.model.enums.Role;
+import com.fintech.repository.PrincipalRevocationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the set of principals whose previously issued tokens must no longer be accepted. Revocations
+ * are applied locally at once and persisted, and every node reloads them on a short schedule.
+ */
+@Service
+@RequiredArgsConstructor
+public class TokenRevocationService {
+    private final PrincipalRevocationRepository principalRevocationRepository;
+    private final Map<String, Long> revokedAtMillis = new ConcurrentHashMap<>();
+
+    @Value("${fintech.jwt.max-token-age-ms:604800000}")
+    private long maxTokenAgeMs;
+
+    public void revoke(Role role, Long principalId) {
+        LocalDateTime now = LocalDateTime.now();
+        String key = key(role, principalId);
+        revokedAtMillis.merge(key, toMillis(now), Math::max);
+        principalRevocationRepository.save(new PrincipalRevocation(key, now));
+    }
+
+    public boolean isRevoked(JwtPrincipal principal) {
+        Long revokedAt = revokedAtMillis.get(key(principal.getRole(), principal.getId()));
+        // Issue times are to the millisecond; older tokens only have theirs to the second, rounded down, so one
+        // of those from the same second as the revocation is rejected even if it came after
+        return revokedAt != null && principal.getIssuedAt().getTime() <= revokedAt;
+    }
+
+    @Scheduled(fixedDelayString = "${fintech.jwt.revocation-refresh-ms:5000}")
+    public void refresh() {
+        LocalDateTime oldestRelevant = LocalDateTime.now().minusNanos(maxTokenAgeMs * 1_000_000);
+        for (PrincipalRevocation revocation : principalRevocationRepository.findAllByRevokedAtAfter(oldestRelevant)) {
+            revokedAtMillis.merge(revocation.getPrincipalKey(), toMillis(revocation.getRevokedAt()), Math::max);
+        }
+        // Every token issued before this point has expired anyway
+        long cutoff = toMillis(oldestRelevant);
+        revokedAtMillis.values().removeIf(revokedAt -> revokedAt < cutoff);
+    }
+
+    private static String key(Role role, Long principalId) {
+        return role.name() + ":" + principalId;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,306 @@
+package com.fintech.service;
+
+import com.fintech.model.Money;
+import com.fintech.model.TransactionArchive;
+import com.fintech.model.TransactionArchiveSegment;
+import com.fintech.model.enums.AppStatus;
+import com.fintech.model.enums.ArchiveStatus;
+import com.fintech.model.enums.TransactionType;
+import com.fintech.repository.TransactionArchiveRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Looks after the monthly partitions of transactions: keeps empty partitions ready for the coming months,
+ * and moves months older than hot-months into archive files through {@link TransactionArchiveStore}.
+ * Runs on its own thread, since writing a month can take far longer than the @Scheduled jobs may wait.
+ *
+ * A month is archived in two steps. Its rows are written to a file, read back and checked, every account in
+ * it gets a balance checkpoint at its last row, and the month is recorded as archived; from then on reads for
+ * it go to the file. The partition is only dropped on a run at least drop-grace-ms later, so a request that
+ * looked up the archive boundary just before the switch never finds its rows gone.
+ */
+@Slf4j
+@Service
+public class TransactionArchiveService {
+    private static final Pattern MONTH_PARTITION = Pattern.compile("p(\\d{6})");
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final int CHECKPOINT_BATCH_SIZE = 500;
+
+    private static final String LIST_PARTITIONS_SQL = "select partition_name from information_schema.partitions " +
+            "where table_schema = database() and table_name = 'transactions' and partition_name is not null";
+    private static final String SELECT_MONTH_SQL = "select id, transaction_date, transaction_type, amount, app_status, user_id, loan_id, verified_by " +
+            "from transactions where transaction_date >= ? and transaction_date < ? order by user_id, transaction_date, id";
+    private static final String CLAIM_SQL = "insert into transaction_archive (period_start, period_end, partition_name, status, claimed_date) " +
+            "values (?, ?, ?, 'PENDING', ?)";
+    // A claim left behind by a node that died part way through is taken over once it is old enough
+    private static final String RECLAIM_SQL = "update transaction_archive set claimed_date = ? " +
+            "where period_start = ? and status = 'PENDING' and claimed_date < ?";
+    private static final String INSERT_SEGMENT_SQL = "insert into transaction_archive_segment (period_start, user_id, byte_offset, " +
+            "byte_length, row_count, first_transaction_date, last_transaction_date, last_transaction_id) values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final TransactionArchiveStore transactionArchiveStore;
+    private final TransactionArchiveRepository transactionArchiveRepository;
+    private final BalanceCheckpointService balanceCheckpointService;
+    private final DailyRollupService dailyRollupService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int hotMonths;
+    private final int monthsAhead;
+    private final long runIntervalMs;
+    private final long dropGraceMs;
+    private final long claimTimeoutMs;
+    private final int fetchSize;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "transaction-archiver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TransactionArchiveService(TransactionArchiveStore transactionArchiveStore,
+                                     TransactionArchiveRepository transactionArchiveRepository,
+                                     BalanceCheckpointService balanceCheckpointService,
+                                     DailyRollupService dailyRollupService,
+                                     JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                     @Value("${fintech.archive.enabled:true}") boolean enabled,
+                                     @Value("${fintech.archive.hot-months:24}") int hotMonths,
+                                     @Value("${fintech.archive.months-ahead:3}") int monthsAhead,
+                                     @Value("${fintech.archive.run-interval-ms:3600000}") long runIntervalMs,
+                                     @Value("${fintech.archive.drop-grace-ms:3600000}") long dropGraceMs,
+                                     @Value("${fintech.archive.claim-timeout-ms:21600000}") long claimTimeoutMs,
+                                     @Value("${fintech.archive.fetch-size:1000}") int fetchSize) {
+        this.transactionArchiveStore = transactionArchiveStore;
+        this.transactionArchiveRepository = transactionArchiveRepository;
+        this.balanceCheckpointService = balanceCheckpointService;
+        this.dailyRollupService = dailyRollupService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.hotMonths = hotMonths;
+        this.monthsAhead = monthsAhead;
+        this.runIntervalMs = runIntervalMs;
+        this.dropGraceMs = dropGraceMs;
+        this.claimTimeoutMs = claimTimeoutMs;
+        this.fetchSize = fetchSize;
+    }
+
+    // Started once the migrations have run, since they are what partition the table
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            executor.scheduleWithFixedDelay(this::run, 0, runIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private void run() {
+        try {
+            NavigableMap<YearMonth, String> partitions = monthPartitions();
+            if (partitions.isEmpty()) {
+                log.warn("transactions has no monthly partitions; partition maintenance and archiving are skipped");
+                return;
+            }
+            addComingMonths(partitions);
+            archiveClosedMonths(partitions);
+            dropArchivedPartitions(partitions);
+        } catch (RuntimeException e) {
+            // An exception here would cancel the schedule for good
+            log.warn("Transaction partition maintenance failed", e);
+        }
+    }
+
+    private NavigableMap<YearMonth, String> monthPartitions() {
+        NavigableMap<YearMonth, String> partitions = new TreeMap<>();
+        for (String name : jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, String.class)) {
+            Matcher matcher = MONTH_PARTITION.matcher(name);
+            if (matcher.matches()) {
+                partitions.put(YearMonth.parse(matcher.group(1), PARTITION_MONTH), name);
+            }
+        }
+        return partitions;
+    }
+
+    // Splits the new months off p_future, which holds no rows, so no data is copied
+    private void addComingMonths(NavigableMap<YearMonth, String> partitions) {
+        YearMonth last = partitions.lastKey();
+        YearMonth until = YearMonth.now().plusMonths(monthsAhead);
+        if (!last.isBefore(until)) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder("alter table transactions reorganize partition " + FUTURE_PARTITION + " into (");
+        for (YearMonth month = last.plusMonths(1); !month.isAfter(until); month = month.plusMonths(1)) {
+            sql.append("partition p").append(month.format(PARTITION_MONTH))
+                    .append(" values less than ('").append(month.plusMonths(1).atDay(1)).append("'), ");
+        }
+        jdbcTemplate.execute(sql.append("partition ").append(FUTURE_PARTITION).append(" values less than (maxvalue))").toString());
+        log.info("Added transactions partitions through {}", until);
+    }
+
+    // Oldest first, stopping at the first month that cannot be archived yet, so archived months stay contiguous
+    private void archiveClosedMonths(Map<YearMonth, String> partitions) {
+        YearMonth hotFrom = YearMonth.now().minusMonths(hotMonths);
+        LocalDateTime rolledUpThrough = dailyRollupService.rolledUpThrough();
+        for (Map.Entry<YearMonth, String> partition : partitions.entrySet()) {
+            YearMonth month = partition.getKey();
+            LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+            // The rollups are built from these rows, so the month has to be rolled up before they leave the table
+            if (!month.isBefore(hotFrom) || rolledUpThrough == null || rolledUpThrough.isBefore(end)
+                    || Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            TransactionArchive archive = transactionArchiveRepository.findById(month.atDay(1)).orElse(null);
+            if (archive != null && archive.getStatus() != ArchiveStatus.PENDING) {
+                continue;
+            }
+            if (!claim(month, partition.getValue(), archive != null)) {
+                return;
+            }
+            try {
+                archive(month);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private boolean claim(YearMonth month, String partitionName, boolean claimedBefore) {
+        LocalDateTime now = LocalDateTime.now();
+        if (claimedBefore) {
+            return jdbcTemplate.update(RECLAIM_SQL, Timestamp.valueOf(now), Date.valueOf(month.atDay(1)),
+                    Timestamp.valueOf(now.minusNanos(claimTimeoutMs * 1_000_000))) == 1;
+        }
+        try {
+            jdbcTemplate.update(CLAIM_SQL, Date.valueOf(month.atDay(1)), Date.valueOf(month.plusMonths(1).atDay(1)),
+                    partitionName, Timestamp.valueOf(now));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;  // Another node is archiving this month
+        }
+    }
+
+    private void archive(YearMonth month) throws IOException {
+        LocalDate start = month.atDay(1);
+        List<TransactionArchiveSegment> segments;
+        String sha256;
+        long rowCount;
+        try (TransactionArchiveStore.ArchiveWriter writer = transactionArchiveStore.create(start)) {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SELECT_MONTH_SQL);
+                statement.setFetchSize(fetchSize);
+                statement.setTimestamp(1, Timestamp.valueOf(start.atStartOfDay()));
+                statement.setTimestamp(2, Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()));
+                return statement;
+            }, (RowCallbackHandler) rs -> {
+                try {
+                    writer.append(toArchivedTransaction(rs));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.finish();
+            segments = writer.getSegments();
+            sha256 = writer.getSha256();
+            rowCount = writer.getRowCount();
+        }
+        if (!transactionArchiveStore.verify(start, sha256, rowCount)) {
+            throw new IllegalStateException("Archive of " + month + " does not match the rows written to it");
+        }
+
+        // Checkpoints are correct whether or not the month ends up archived, so they need not share its transaction
+        for (int from = 0; from < segments.size(); from += CHECKPOINT_BATCH_SIZE) {
+            List<TransactionArchiveSegment> batch = segments.subList(from, Math.min(from + CHECKPOINT_BATCH_SIZE, segments.size()));
+            transactionTemplate.executeWithoutResult(status -> batch.stream().filter(segment -> segment.getUserId() != null)
+                    .forEach(segment -> balanceCheckpointService.checkpointAt(segment.getUserId(),
+                            segment.getLastTransactionDate(), segment.getLastTransactionId())));
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_SEGMENT_SQL, segments, 1000, (ps, segment) -> {
+                ps.setDate(1, Date.valueOf(segment.getPeriodStart()));
+                ps.setObject(2, segment.getUserId());
+                ps.setLong(3, segment.getByteOffset());
+                ps.setInt(4, segment.getByteLength());
+                ps.setInt(5, segment.getRowCount());
+                ps.setTimestamp(6, Timestamp.valueOf(segment.getFirstTransactionDate()));
+                ps.setTimestamp(7, Timestamp.valueOf(segment.getLastTransactionDate()));
+                ps.setLong(8, segment.getLastTransactionId());
+            });
+            TransactionArchive archive = transactionArchiveRepository.findById(start).orElseThrow();
+            archive.setStatus(ArchiveStatus.ARCHIVED);
+            archive.setFileName(transactionArchiveStore.fileName(start));
+            archive.setSha256(sha256);
+            archive.setRowCount(rowCount);
+            archive.setArchivedDate(LocalDateTime.now());
+            transactionArchiveRepository.save(archive);
+        });
+        log.info("Archived {} transactions of {} for {} accounts", rowCount, month, segments.size());
+    }
+
+    private void dropArchivedPartitions(Map<YearMonth, String> partitions) {
+        LocalDateTime archivedBefore = LocalDateTime.now().minusNanos(dropGraceMs * 1_000_000);
+        for (TransactionArchive archive : transactionArchiveRepository
+                .findAllByStatusAndArchivedDateBeforeOrderByPeriodStart(ArchiveStatus.ARCHIVED, archivedBefore)) {
+            try {
+                // The file is all that will be left of the month, so it is checked again right before the drop
+                if (!transactionArchiveStore.verify(archive.getPeriodStart(), archive.getSha256(), archive.getRowCount())) {
+                    log.error("Archive {} no longer matches its checksum; partition {} is kept", archive.getFileName(), archive.getPartitionName());
+                    return;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (partitions.containsValue(archive.getPartitionName())) {
+                jdbcTemplate.execute("alter table transactions drop partition " + archive.getPartitionName());
+            }
+            archive.setStatus(ArchiveStatus.DROPPED);
+            archive.setDroppedDate(LocalDateTime.now());
+            transactionArchiveRepository.save(archive);
+            log.info("Dropped transactions partition {}", archive.getPartitionName());
+        }
+    }
+
+    private static TransactionArchiveStore.ArchivedTransaction toArchivedTransaction(ResultSet rs) throws SQLException {
+        String type = rs.getString("transaction_type");
+        String status = rs.getString("app_status");
+        return new TransactionArchiveStore.ArchivedTransaction(rs.getLong("id"), rs.getTimestamp("transaction_date").toLocalDateTime(),
+                type != null ? TransactionType.valueOf(type) : null,
+                rs.getBigDecimal("amount") != null ? Money.of(rs.getBigDecimal("amount")) : null,
+                status != null ? AppStatus.valueOf(status) : null,
+                rs.getObject("user_id", Long.class), rs.getObject("loan_id", Long.class), rs.getObject("verified_by", Long.class));
+    }
+}
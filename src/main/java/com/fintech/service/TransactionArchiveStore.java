@@ -0,0 +1,343 @@
+package com.fintech.service;
+
+import com.fintech.dto.response.TransactionStatement;
+import com.fintech.model.Money;
+import com.fintech.model.TransactionArchiveSegment;
+import com.fintech.model.enums.AppStatus;
+import com.fintech.model.enums.TransactionType;
+import com.fintech.repository.TransactionArchiveRepository;
+import com.fintech.repository.TransactionArchiveSegmentRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archived months of the transactions table, one file per month under fintech.archive.directory.
+ * Rows are sorted by account, and each account's rows are a separate gzip member whose offset is kept in
+ * transaction_archive_segment, so reading one account's month decompresses only that account's rows.
+ * The SHA-256 of the whole file is recorded and checked before the month's partition is dropped.
+ *
+ * Ledger rows dated before {@link #archivedBefore()} are read from here, the rest from the table.
+ */
+@Service
+public class TransactionArchiveStore {
+    private static final LocalDateTime START_OF_TIME = LocalDateTime.of(1000, 1, 1, 0, 0);
+
+    private final TransactionArchiveRepository transactionArchiveRepository;
+    private final TransactionArchiveSegmentRepository transactionArchiveSegmentRepository;
+    private final Path directory;
+
+    public TransactionArchiveStore(TransactionArchiveRepository transactionArchiveRepository,
+                                   TransactionArchiveSegmentRepository transactionArchiveSegmentRepository,
+                                   @Value("${fintech.archive.directory:archive}") String directory) {
+        this.transactionArchiveRepository = transactionArchiveRepository;
+        this.transactionArchiveSegmentRepository = transactionArchiveSegmentRepository;
+        this.directory = Paths.get(directory);
+    }
+
+    /**
+     * Start of the oldest month still in the transactions table; every row dated before it is archived.
+     */
+    public LocalDateTime archivedBefore() {
+        LocalDate archivedBefore = transactionArchiveRepository.findArchivedBefore();
+        return archivedBefore != null ? archivedBefore.atStartOfDay() : START_OF_TIME;
+    }
+
+    // Archived rows of the account after the given position and dated before toDate, in (transactionDate, id) order
+    public List<TransactionStatement> findStatementPage(Long userId, LocalDateTime afterDate, Long afterId,
+                                                        LocalDateTime toDate, int limit) {
+        List<TransactionStatement> lines = new ArrayList<>();
+        for (TransactionArchiveSegment segment : transactionArchiveSegmentRepository.findOverlapping(userId, afterDate, toDate)) {
+            for (ArchivedTransaction row : readSegment(segment)) {
+                if (row.isAfter(afterDate, afterId) && row.getTransactionDate().isBefore(toDate)) {
+                    lines.add(row.toStatement());
+                    if (lines.size() == limit) {
+                        return lines;
+                    }
+                }
+            }
+        }
+        return lines;
+    }
+
+    // As findStatementPage without a limit; each month is decompressed only when the stream reaches it
+    public Stream<TransactionStatement> streamStatement(Long userId, LocalDateTime afterDate, Long afterId, LocalDateTime toDate) {
+        return transactionArchiveSegmentRepository.findOverlapping(userId, afterDate, toDate).stream()
+                .flatMap(segment -> readSegment(segment).stream())
+                .filter(row -> row.isAfter(afterDate, afterId) && row.getTransactionDate().isBefore(toDate))
+                .map(ArchivedTransaction::toStatement);
+    }
+
+    // Net effect of the archived rows after the first position, up to and including the second
+    public Money sumSignedAmountBetween(Long userId, LocalDateTime afterDate, Long afterId, LocalDateTime date, Long id) {
+        Money sum = Money.ZERO;
+        for (TransactionArchiveSegment segment : transactionArchiveSegmentRepository.findOverlapping(userId, afterDate, date)) {
+            for (ArchivedTransaction row : readSegment(segment)) {
+                // As in the ledger sums, rows without an amount count for nothing and rows without a type as debits
+                if (row.getAmount() != null && row.isAfter(afterDate, afterId) && !row.isAfter(date, id)) {
+                    sum = row.getTransactionType() != null && row.getTransactionType().isCredit() ? sum.plus(row.getAmount()) : sum.minus(row.getAmount());
+                }
+            }
+        }
+        return sum;
+    }
+
+    private List<ArchivedTransaction> readSegment(TransactionArchiveSegment segment) {
+        byte[] member = new byte[segment.getByteLength()];
+        try (FileChannel channel = FileChannel.open(file(segment.getPeriodStart()), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.wrap(member);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, segment.getByteOffset() + buffer.position()) < 0) {
+                    throw new IOException("Archive " + segment.getPeriodStart() + " is shorter than its segment index");
+                }
+            }
+            // The gzip trailer's CRC is checked as the member is read to the end
+            List<ArchivedTransaction> rows = new ArrayList<>(segment.getRowCount());
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(new ByteArrayInputStream(member)), StandardCharsets.UTF_8))) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    rows.add(ArchivedTransaction.decode(line));
+                }
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Starts the archive file of the month. Rows must be appended in (userId, transactionDate, id) order.
+     */
+    public ArchiveWriter create(LocalDate periodStart) throws IOException {
+        Files.createDirectories(directory);
+        return new ArchiveWriter(periodStart, file(periodStart));
+    }
+
+    /**
+     * Reads the whole file back and checks it against the checksum and row count recorded when it was written.
+     */
+    public boolean verify(LocalDate periodStart, String sha256, long rowCount) throws IOException {
+        Path file = file(periodStart);
+        if (!Files.exists(file)) {
+            return false;
+        }
+        MessageDigest digest = sha256();
+        long rows = 0;
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            if (Files.size(file) > 0) {
+                // GZIPInputStream reads concatenated members as one stream
+                BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(in), StandardCharsets.UTF_8));
+                while (reader.readLine() != null) {
+                    rows++;
+                }
+            }
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return rows == rowCount && HexFormat.of().formatHex(digest.digest()).equals(sha256);
+    }
+
+    public String fileName(LocalDate periodStart) {
+        return "transactions-" + periodStart.toString().substring(0, 7) + ".tsv.gz";
+    }
+
+    private Path file(LocalDate periodStart) {
+        return directory.resolve(fileName(periodStart));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes to a temporary file that replaces the archive only once it is complete and synced to disk.
+     */
+    public static class ArchiveWriter implements Closeable {
+        private final LocalDate periodStart;
+        private final Path target;
+        private final Path temporary;
+        private final FileChannel channel;
+        private final MessageDigest digest = sha256();
+        private final CountingOutputStream out;
+        private final List<TransactionArchiveSegment> segments = new ArrayList<>();
+        private long rowCount;
+        private boolean finished;
+
+        private TransactionArchiveSegment segment;
+        private Writer writer;
+
+        private ArchiveWriter(LocalDate periodStart, Path target) throws IOException {
+            this.periodStart = periodStart;
+            this.target = target;
+            this.temporary = target.resolveSibling(target.getFileName() + ".tmp");
+            this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.out = new CountingOutputStream(new DigestOutputStream(Channels.newOutputStream(channel), digest));
+        }
+
+        public void append(ArchivedTransaction row) throws IOException {
+            if (segment == null || !Objects.equals(segment.getUserId(), row.getUserId())) {
+                endSegment();
+                segment = new TransactionArchiveSegment(null, periodStart, row.getUserId(), out.count, 0, 0,
+                        row.getTransactionDate(), row.getTransactionDate(), row.getId());
+                writer = new OutputStreamWriter(new GZIPOutputStream(new FilterOutputStream(out) {
+                    @Override
+                    public void close() throws IOException {
+                        flush();  // Ends the gzip member without closing the file
+                    }
+                }, 8192), StandardCharsets.UTF_8);
+            }
+            writer.write(row.encode());
+            writer.write('\n');
+            segment.setRowCount(segment.getRowCount() + 1);
+            segment.setLastTransactionDate(row.getTransactionDate());
+            segment.setLastTransactionId(row.getId());
+            rowCount++;
+        }
+
+        public void finish() throws IOException {
+            endSegment();
+            out.flush();
+            channel.force(true);
+            channel.close();
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            finished = true;
+        }
+
+        private void endSegment() throws IOException {
+            if (segment == null) {
+                return;
+            }
+            writer.close();
+            segment.setByteLength(Math.toIntExact(out.count - segment.getByteOffset()));
+            segments.add(segment);
+            segment = null;
+        }
+
+        public List<TransactionArchiveSegment> getSegments() {
+            return segments;
+        }
+
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        public String getSha256() {
+            return HexFormat.of().formatHex(digest.digest());
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                channel.close();
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    /**
+     * A full transactions row as stored in the archive, one tab-separated line per row.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ArchivedTransaction {
+        private final Long id;
+        private final LocalDateTime transactionDate;
+        private final TransactionType transactionType;
+        private final Money amount;
+        private final AppStatus status;
+        private final Long userId;
+        private final Long loanId;
+        private final Long verifiedBy;
+
+        boolean isAfter(LocalDateTime date, Long afterId) {
+            int byDate = transactionDate.compareTo(date);
+            return byDate > 0 || (byDate == 0 && id > afterId);
+        }
+
+        TransactionStatement toStatement() {
+            return new TransactionStatement(id, transactionDate, transactionType, amount);
+        }
+
+        String encode() {
+            return id + "\t" + transactionDate + "\t" + text(transactionType) + "\t" + text(amount != null ? amount.toBigDecimal() : null)
+                    + "\t" + text(status) + "\t" + text(userId) + "\t" + text(loanId) + "\t" + text(verifiedBy);
+        }
+
+        static ArchivedTransaction decode(String line) {
+            String[] fields = line.split("\t", -1);
+            return new ArchivedTransaction(Long.valueOf(fields[0]), LocalDateTime.parse(fields[1]),
+                    fields[2].isEmpty() ? null : TransactionType.valueOf(fields[2]),
+                    fields[3].isEmpty() ? null : Money.of(new BigDecimal(fields[3])),
+                    fields[4].isEmpty() ? null : AppStatus.valueOf(fields[4]),
+                    number(fields[5]), number(fields[6]), number(fields[7]));
+        }
+
+        private static String text(Object value) {
+            return value != null ? value.toString() : "";
+        }
+
+        private static Long number(String field) {
+            return field.isEmpty() ? null : Long.valueOf(field);
+        }
+    }
+}
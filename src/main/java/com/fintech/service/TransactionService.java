@@ -1,33 +1,55 @@
 package com.fintech.service;
 
+import com.fintech.config.Auditable;
 import com.fintech.dto.ResponseDto;
 import com.fintech.dto.request.ApplyTransactionRequest;
 import com.fintech.dto.request.DisbursementRequest;
 import com.fintech.dto.request.RepaymentRequest;
 import com.fintech.dto.response.TransactionStatement;
+import com.fintech.dto.response.TransactionStatementPage;
+import com.fintech.event.LoanDisbursed;
+import com.fintech.event.LoanStatusChanged;
+import com.fintech.event.TransactionApplied;
 import com.fintech.exception.BadRequestException;
 import com.fintech.model.Admin;
 import com.fintech.model.Loan;
+import com.fintech.model.Money;
 import com.fintech.model.Transactions;
 import com.fintech.model.UsersAccount;
 import com.fintech.model.enums.AppStatus;
 import com.fintech.model.enums.LoanStatus;
 import com.fintech.model.enums.TransactionType;
-import com.fintech.repository.AdminRepository;
 import com.fintech.repository.LoanRepository;
 import com.fintech.repository.TransactionRepository;
 import com.fintech.repository.UserAccountRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.math.BigDecimal;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Base64;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static com.fintech.dto.ApiResponse.ok;
 
@@ -36,14 +58,30 @@ import static com.fintech.dto.ApiResponse.ok;
 public class TransactionService {
     private final TransactionRepository transactionRepository;
     private final LoanRepository loanRepository;
-    private final AdminRepository adminRepository;
+    private final AccountLookupService accountLookupService;
     private final UserAccountRepository userAccountRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final BalanceCheckpointService balanceCheckpointService;
+    private final LoanScheduleService loanScheduleService;
+    private final TransactionArchiveStore transactionArchiveStore;
+    private final DomainEventPublisher domainEventPublisher;
+    private final VelocityLimitService velocityLimitService;
 
+    private static final int DEFAULT_STATEMENT_PAGE_SIZE = 100;
+    private static final int MAX_STATEMENT_PAGE_SIZE = 500;
+    // Bounds that fit in a MySQL DATETIME column
+    private static final LocalDateTime START_OF_TIME = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime END_OF_TIME = LocalDateTime.of(9999, 12, 31, 23, 59);
 
 
+    @Auditable(action = "LOAN_DISBURSEMENT", details = "'Loan ID: ' + #request.loanId + ' disbursed: ' + #request.amount",
+            userId = "#result.body.data.loan.user.id", adminId = "#request.adminId")
+    @Transactional
+    @Timed("fintech.service")
     public ResponseEntity<ResponseDto<Transactions>> recordDisbursement(@RequestBody DisbursementRequest request) {
-        Optional<Loan> loanOptional = loanRepository.findById(request.getLoanId());
-        Optional<Admin> adminOptional = adminRepository.findById(request.getAdminId());
+        Optional<Loan> loanOptional = loanRepository.findWithUserById(request.getLoanId());
+        Optional<Admin> adminOptional = accountLookupService.findAdmin(request.getAdminId());
         if (loanOptional.isEmpty()) {
             throw new BadRequestException("Loan not found");
         }
@@ -53,26 +91,41 @@ public class TransactionService {
         Loan loan = loanOptional.get();
         Admin admin = adminOptional.get();
         UsersAccount userAccount = loan.getUser();
-        BigDecimal newBalance = userAccount.getAccountBalance().add(request.getAmount());
-        userAccount.setAccountBalance(newBalance);
+        if (request.getAmount() == null || !request.getAmount().isPositive()) {
+            throw new BadRequestException("Disbursement amount must be positive");
+        }
+        userAccountRepository.creditBalance(userAccount.getId(), request.getAmount());
+        userAccount.setAccountBalance(userAccountRepository.findAccountBalanceById(userAccount.getId()));
         Transactions transaction = new Transactions();
+        transaction.setUser(userAccount);
         transaction.setLoan(loan);
         transaction.setVerifiedBy(admin);
         transaction.setAmount(request.getAmount());
         transaction.setTransactionType(TransactionType.DISBURSEMENT);
         transaction.setTransactionDate(LocalDateTime.now());
         transaction.setStatus(AppStatus.COMPLETED);
+        LoanStatus previousStatus = loan.getStatus();
         loan.setStatus(LoanStatus.DISBURSED);
+        loan.setDisbursementDate(transaction.getTransactionDate());
+        // Installments fall due from the day the money actually went out
+        loanScheduleService.generateSchedule(loan, transaction.getTransactionDate().toLocalDate());
         loan.setNarration("Total amount of "+transaction.getAmount()+" "+ "has been disbursed into your account");
         loanRepository.save(loan);
-        userAccountRepository.save(userAccount);
         transactionRepository.save(transaction);
+        balanceCheckpointService.markDirty(userAccount.getId());
+        domainEventPublisher.publish(transactionApplied(transaction, userAccount.getId(), loan.getId()),
+                new LoanStatusChanged(loan.getId(), userAccount.getId(), previousStatus, LoanStatus.DISBURSED, admin.getId(), transaction.getTransactionDate()),
+                new LoanDisbursed(loan.getId(), userAccount.getId(), transaction.getId(), admin.getId(), transaction.getAmount(), transaction.getTransactionDate()));
         return ok(transaction,"Loan disbursed successfully");
     }
 
+    @Auditable(action = "LOAN_REPAYMENT", details = "'Loan ID: ' + #request.loanId + ' repaid: ' + #request.amount",
+            userId = "#result.body.data.loan.user.id", adminId = "#request.adminId")
+    @Transactional
+    @Timed("fintech.service")
     public ResponseEntity<ResponseDto<Transactions>> recordRepayment(RepaymentRequest request) {
-        Optional<Loan> loanOptional = loanRepository.findById(request.getLoanId());
-        Optional<Admin> adminOptional = adminRepository.findById(request.getAdminId());
+        Optional<Loan> loanOptional = loanRepository.findWithUserById(request.getLoanId());
+        Optional<Admin> adminOptional = accountLookupService.findAdmin(request.getAdminId());
         if (loanOptional.isEmpty()) {
             throw new BadRequestException("Loan not found");
         }
@@ -82,70 +135,234 @@ public class TransactionService {
         Loan loan = loanOptional.get();
         Admin admin = adminOptional.get();
         UsersAccount userAccount = loan.getUser();
-        BigDecimal newBalance = userAccount.getAccountBalance().subtract(request.getAmount());
-        userAccount.setAccountBalance(newBalance);
+        if (request.getAmount() == null || !request.getAmount().isPositive()) {
+            throw new BadRequestException("Repayment amount must be positive");
+        }
+        if (userAccountRepository.debitBalance(userAccount.getId(), request.getAmount()) == 0) {
+            throw new BadRequestException("Insufficient funds for this repayment");
+        }
+        userAccount.setAccountBalance(userAccountRepository.findAccountBalanceById(userAccount.getId()));
         Transactions transaction = new Transactions();
+        transaction.setUser(userAccount);
         transaction.setLoan(loan);
         transaction.setVerifiedBy(admin);
         transaction.setAmount(request.getAmount());
         transaction.setTransactionType(TransactionType.REPAYMENT);
         transaction.setTransactionDate(LocalDateTime.now());
         transaction.setStatus(AppStatus.COMPLETED);
+        LoanStatus previousStatus = loan.getStatus();
         loan.setStatus(LoanStatus.REPAID);
         loan.setNarration("Total amount of "+transaction.getAmount()+" "+ "has been recorded for your repayment");
         loanRepository.save(loan);
         transactionRepository.save(transaction);
+        balanceCheckpointService.markDirty(userAccount.getId());
+        domainEventPublisher.publish(transactionApplied(transaction, userAccount.getId(), loan.getId()),
+                new LoanStatusChanged(loan.getId(), userAccount.getId(), previousStatus, LoanStatus.REPAID, admin.getId(), transaction.getTransactionDate()));
         return ok(transaction,"Loan repayment successfully done");
     }
+    @Auditable(action = "TRANSACTION", details = "#request.transactionType + ' of ' + #request.amount", userId = "#request.userId")
+    @Transactional
+    @Timed("fintech.service")
     public ResponseEntity<ResponseDto<Transactions>> applyTransaction(@RequestBody ApplyTransactionRequest request) {
-        Optional<UsersAccount> usersAccountOptional = userAccountRepository.findById(request.getUserId());
+        Optional<UsersAccount> usersAccountOptional = accountLookupService.findUser(request.getUserId());
         if (usersAccountOptional.isEmpty()) {
             throw new BadRequestException("Account not found");
         }
 
         UsersAccount usersAccount = usersAccountOptional.get();
-        BigDecimal currentBalance = usersAccount.getAccountBalance();
-        if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+        if (request.getAmount() == null || !request.getAmount().isPositive()) {
             throw new BadRequestException("Transaction amount must be positive");
         }
-        if (TransactionType.WITHDRAWAL.name().equals(request.getTransactionType())) {
-            if (currentBalance.compareTo(request.getAmount()) < 0) {
+        if (!TransactionType.DEPOSIT.name().equals(request.getTransactionType())
+                && !TransactionType.WITHDRAWAL.name().equals(request.getTransactionType())) {
+            throw new BadRequestException("Transaction type must be DEPOSIT or WITHDRAWAL");
+        }
+        TransactionType transactionType = TransactionType.valueOf(request.getTransactionType());
+        velocityLimitService.check(usersAccount.getId(), transactionType, request.getAmount());
+        if (transactionType == TransactionType.DEPOSIT) {
+            userAccountRepository.creditBalance(usersAccount.getId(), request.getAmount());
+        } else {
+            // The funds check and the debit are one statement, so two withdrawals cannot both pass it
+            if (userAccountRepository.debitBalance(usersAccount.getId(), request.getAmount()) == 0) {
                 throw new BadRequestException("Insufficient funds for this withdrawal");
             }
         }
-        if (TransactionType.DEPOSIT.name().equals(request.getTransactionType())) {
-            usersAccount.setAccountBalance(currentBalance.add(request.getAmount()));
-        } else if (TransactionType.WITHDRAWAL.name().equals(request.getTransactionType())) {
-            usersAccount.setAccountBalance(currentBalance.subtract(request.getAmount()));
-        }
-        userAccountRepository.save(usersAccount);
+        usersAccount.setAccountBalance(userAccountRepository.findAccountBalanceById(usersAccount.getId()));
         Transactions transaction = new Transactions();
         transaction.setAmount(request.getAmount());
         transaction.setTransactionDate(LocalDateTime.now());
         transaction.setUser(usersAccount);
         transaction.setStatus(AppStatus.COMPLETED);
-        transaction.setTransactionType(TransactionType.valueOf(request.getTransactionType()));
+        transaction.setTransactionType(transactionType);
         transactionRepository.save(transaction);
+        balanceCheckpointService.markDirty(usersAccount.getId());
+        domainEventPublisher.publish(transactionApplied(transaction, usersAccount.getId(), null));
         return ok(transaction,"Transaction applied successfully");
     }
 
-    public ResponseEntity<ResponseDto<List<TransactionStatement>>> generateTransactionStatementForUser(Long userId) {
-        Optional<UsersAccount> usersAccountOptional = userAccountRepository.findById(userId);
-        if (usersAccountOptional.isEmpty()) {
+    static TransactionApplied transactionApplied(Transactions transaction, Long userId, Long loanId) {
+        return new TransactionApplied(transaction.getId(), userId, loanId, transaction.getTransactionType(),
+                transaction.getAmount(), transaction.getTransactionDate());
+    }
+
+    @Transactional(readOnly = true)
+    @Timed("fintech.service")
+    public ResponseEntity<ResponseDto<TransactionStatementPage>> generateTransactionStatementForUser(Long userId, LocalDateTime from, LocalDateTime to,
+                                                                                              String cursor, Integer size) {
+        if (!userAccountRepository.existsById(userId)) {
             throw new BadRequestException("Account not found");
         }
-        UsersAccount usersAccount = usersAccountOptional.get();
-        List<Transactions> transactions = transactionRepository.findAllByUser_Id(userId);
-        transactions.sort(Comparator.comparing(Transactions::getTransactionDate));
-        List<TransactionStatement> statement = new ArrayList<>();
-        for (Transactions transaction : transactions) {
-            TransactionStatement transactionStatement = new TransactionStatement();
-            transactionStatement.setTransactionDate(transaction.getTransactionDate());
-            transactionStatement.setTransactionType(transaction.getTransactionType());
-            transactionStatement.setAmount(transaction.getAmount());
-            transactionStatement.setBalanceAfterTransaction(usersAccount.getAccountBalance());
-            statement.add(transactionStatement);
-        }
-        return ok(statement, "Transaction statement generated successfully");
+        int pageSize = size == null ? DEFAULT_STATEMENT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_STATEMENT_PAGE_SIZE));
+        StatementPosition start = cursor != null ? StatementPosition.decode(cursor) : StatementPosition.before(from);
+        LocalDateTime toDate = to != null ? to : END_OF_TIME;
+
+        // One extra row tells us whether another page follows
+        List<TransactionStatement> lines = findStatementLines(userId, start, toDate, pageSize + 1);
+        boolean hasMore = lines.size() > pageSize;
+        if (hasMore) {
+            lines = lines.subList(0, pageSize);
+        }
+        Money openingBalance = balanceUpTo(userId, start);
+        Money balance = openingBalance;
+        for (TransactionStatement line : lines) {
+            balance = applyToBalance(balance, line);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            TransactionStatement last = lines.get(lines.size() - 1);
+            nextCursor = new StatementPosition(last.getTransactionDate(), last.getTransactionId()).encode();
+        }
+        return ok(new TransactionStatementPage(lines, openingBalance, balance, nextCursor), "Transaction statement generated successfully");
+    }
+
+    /**
+     * Writes the whole statement for the range as NDJSON or CSV while rows are read from the database,
+     * so memory use does not depend on how long the account history is.
+     */
+    @Timed("fintech.service")
+    public ResponseEntity<StreamingResponseBody> streamTransactionStatementForUser(Long userId, LocalDateTime from, LocalDateTime to, String format) {
+        if (!userAccountRepository.existsById(userId)) {
+            throw new BadRequestException("Account not found");
+        }
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            throw new BadRequestException("Statement format must be ndjson or csv");
+        }
+        StatementPosition start = StatementPosition.before(from);
+        LocalDateTime toDate = to != null ? to : END_OF_TIME;
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        StreamingResponseBody body = outputStream -> readOnlyTransaction.executeWithoutResult(status -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            try (Stream<TransactionStatement> lines = streamStatementLines(userId, start, toDate)) {
+                Money balance = balanceUpTo(userId, start);
+                if (csv) {
+                    writer.write("transactionId,transactionDate,transactionType,amount,balanceAfterTransaction\n");
+                }
+                for (Iterator<TransactionStatement> iterator = lines.iterator(); iterator.hasNext(); ) {
+                    TransactionStatement line = iterator.next();
+                    balance = applyToBalance(balance, line);
+                    if (csv) {
+                        writer.write(line.getTransactionId() + "," + line.getTransactionDate() + "," + line.getTransactionType()
+                                + "," + line.getAmount() + "," + balance + "\n");
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(line));
+                        writer.write('\n');
+                    }
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        MediaType mediaType = csv ? MediaType.parseMediaType("text/csv") : MediaType.parseMediaType("application/x-ndjson");
+        return ResponseEntity.ok().contentType(mediaType).body(body);
+    }
+
+    @Transactional(readOnly = true)
+    @Timed("fintech.service")
+    public ResponseEntity<ResponseDto<Money>> getBalanceAsOf(Long userId, LocalDateTime asOf) {
+        if (!userAccountRepository.existsById(userId)) {
+            throw new BadRequestException("Account not found");
+        }
+        return ok(balanceAsOf(userId, asOf), "Balance retrieved successfully");
+    }
+
+    /**
+     * The account balance as it stood at the given instant, including every transaction dated at or before it.
+     */
+    public Money balanceAsOf(Long userId, LocalDateTime asOf) {
+        return balanceCheckpointService.balanceAt(userId, asOf, Long.MAX_VALUE);
+    }
+
+    // Rows in archived months come from the archive files, the rest from the table
+    private List<TransactionStatement> findStatementLines(Long userId, StatementPosition start, LocalDateTime toDate, int limit) {
+        LocalDateTime archivedBefore = transactionArchiveStore.archivedBefore();
+        if (!start.getDate().isBefore(archivedBefore)) {
+            return transactionRepository.findStatementPage(userId, start.getDate(), start.getId(), toDate, PageRequest.of(0, limit));
+        }
+        List<TransactionStatement> lines = new ArrayList<>(transactionArchiveStore.findStatementPage(userId, start.getDate(), start.getId(),
+                toDate.isBefore(archivedBefore) ? toDate : archivedBefore, limit));
+        if (lines.size() < limit && toDate.isAfter(archivedBefore)) {
+            StatementPosition hotStart = StatementPosition.before(archivedBefore);
+            lines.addAll(transactionRepository.findStatementPage(userId, hotStart.getDate(), hotStart.getId(), toDate,
+                    PageRequest.of(0, limit - lines.size())));
+        }
+        return lines;
+    }
+
+    private Stream<TransactionStatement> streamStatementLines(Long userId, StatementPosition start, LocalDateTime toDate) {
+        LocalDateTime archivedBefore = transactionArchiveStore.archivedBefore();
+        if (!start.getDate().isBefore(archivedBefore)) {
+            return transactionRepository.streamStatement(userId, start.getDate(), start.getId(), toDate);
+        }
+        Stream<TransactionStatement> archived = transactionArchiveStore.streamStatement(userId, start.getDate(), start.getId(),
+                toDate.isBefore(archivedBefore) ? toDate : archivedBefore);
+        if (!toDate.isAfter(archivedBefore)) {
+            return archived;
+        }
+        StatementPosition hotStart = StatementPosition.before(archivedBefore);
+        return Stream.concat(archived, transactionRepository.streamStatement(userId, hotStart.getDate(), hotStart.getId(), toDate));
+    }
+
+    private Money balanceUpTo(Long userId, StatementPosition position) {
+        return balanceCheckpointService.balanceAt(userId, position.getDate(), position.getId());
+    }
+
+    private static Money applyToBalance(Money balance, TransactionStatement line) {
+        Money newBalance = line.getTransactionType().isCredit() ? balance.plus(line.getAmount()) : balance.minus(line.getAmount());
+        line.setBalanceAfterTransaction(newBalance);
+        return newBalance;
+    }
+
+    /**
+     * A point in the (transactionDate, id) ordering of a user's ledger, also used as the opaque page cursor.
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class StatementPosition {
+        private final LocalDateTime date;
+        private final Long id;
+
+        // Ids are always positive, so id 0 sits before every row of that instant
+        static StatementPosition before(LocalDateTime from) {
+            return new StatementPosition(from != null ? from : START_OF_TIME, 0L);
+        }
+
+        String encode() {
+            String raw = date + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static StatementPosition decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new StatementPosition(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Invalid statement cursor");
+            }
+        }
     }
 }
@@ -1,7 +1,10 @@
 package com.fintech.service;
 
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 
 public interface UserService {
     UserDetailsService userDetailsService();
+
+    UserDetailsPasswordService userDetailsPasswordService();
 }
@@ -1,9 +1,13 @@
 package com.fintech.service;
 
+import com.fintech.model.Admin;
+import com.fintech.model.UsersAccount;
 import com.fintech.repository.AdminRepository;
 import com.fintech.repository.UserAccountRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -14,6 +18,8 @@ import org.springframework.stereotype.Service;
 public class UserServiceImpl implements UserService {
     private final UserAccountRepository userAccountRepository;
     private final AdminRepository adminRepository;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final MeterRegistry meterRegistry;
 
     @Override
     public UserDetailsService userDetailsService() {
@@ -32,5 +38,24 @@ public class UserServiceImpl implements UserService {
             }
         };
     }
-}
 
+    @Override
+    public UserDetailsPasswordService userDetailsPasswordService() {
+        return (user, newPassword) -> {
+            // Only the password column is written, so a concurrent change to the rest of the row is kept
+            if (user instanceof Admin) {
+                Admin admin = (Admin) user;
+                adminRepository.updatePassword(admin.getId(), newPassword);
+                cacheInvalidationService.evict(CacheInvalidationService.ADMINS, admin.getId());
+                admin.setPassword(newPassword);
+            } else {
+                UsersAccount usersAccount = (UsersAccount) user;
+                userAccountRepository.updatePassword(usersAccount.getId(), newPassword);
+                cacheInvalidationService.evict(CacheInvalidationService.USER_ACCOUNTS, usersAccount.getId());
+                usersAccount.setPassword(newPassword);
+            }
+            meterRegistry.counter("password.rehashed").increment();
+            return user;
+        };
+    }
+}
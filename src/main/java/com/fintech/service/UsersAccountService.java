@@ -3,20 +3,28 @@ package com.fintech.service;
 
 import com.fintech.dto.JwtAuthenticationResponse;
 import com.fintech.dto.LoginRequest;
+import com.fintech.config.Auditable;
 import com.fintech.dto.ResponseDto;
 import com.fintech.dto.request.UserAccountRequest;
+import com.fintech.dto.response.UserAccountSummary;
+import com.fintech.dto.response.UserAccountSummaryPage;
 import com.fintech.exception.BadRequestException;
 import com.fintech.model.UsersAccount;
 import com.fintech.model.enums.AppStatus;
+import com.fintech.model.enums.Role;
 import com.fintech.repository.UserAccountRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
@@ -27,12 +35,19 @@ import static com.fintech.dto.ApiResponse.ok;
 @Service
 @RequiredArgsConstructor
 public class UsersAccountService {
+    private static final int DEFAULT_USER_PAGE_SIZE = 50;
+    private static final int MAX_USER_PAGE_SIZE = 200;
+
     private final UserAccountRepository userAccountRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
+    private final LoginThrottleService loginThrottleService;
     private final JWTService jwtService;
+    private final TokenRevocationService tokenRevocationService;
+    private final CacheInvalidationService cacheInvalidationService;
 
 
+    @Auditable(action = "USER_CREATED", details = "'User account created for ' + #request.email", userId = "#result.body.data.id")
     public ResponseEntity<ResponseDto<UsersAccount>> create(UserAccountRequest request) {
         Optional<UsersAccount> usersAccountOptional = userAccountRepository.findByEmail(request.getEmail());
         if (usersAccountOptional.isPresent()) {
@@ -52,6 +67,7 @@ public class UsersAccountService {
         return ok(usersAccount, "User created successfully");
     }
 
+    @Auditable(action = "USER_UPDATED", details = "'User ID: ' + #id + ' updated'", userId = "#id")
     public ResponseEntity<ResponseDto<UsersAccount>> update(UserAccountRequest request, Long id) {
         Optional<UsersAccount> usersAccountOptional = userAccountRepository.findById(id);
         if (usersAccountOptional.isEmpty()) {
@@ -68,9 +84,12 @@ public class UsersAccountService {
         usersAccount.setBvn(request.getBvn());
         usersAccount.setUpdatedDate(LocalDateTime.now());
         userAccountRepository.save(usersAccount);
+        cacheInvalidationService.evict(CacheInvalidationService.USER_ACCOUNTS, usersAccount.getId());
+        tokenRevocationService.revoke(Role.USER, usersAccount.getId()); // Existing tokens carry the old email and status
         return ok(usersAccount, "User updated successfully");
     }
 
+    @Auditable(action = "USER_DEACTIVATED", details = "'User ID: ' + #userId + ' deactivated'", userId = "#userId")
     public ResponseEntity<ResponseDto<String>> delete(Long userId) {
         Optional<UsersAccount> usersAccountOptional = userAccountRepository.findById(userId);
         if (usersAccountOptional.isEmpty()) {
@@ -79,17 +98,53 @@ public class UsersAccountService {
         UsersAccount usersAccount = usersAccountOptional.get();
         usersAccount.setAccountStatus(AppStatus.INACTIVE); // It is not ideal to delete customer account in a fintech app
         userAccountRepository.save(usersAccount);
+        cacheInvalidationService.evict(CacheInvalidationService.USER_ACCOUNTS, usersAccount.getId());
+        tokenRevocationService.revoke(Role.USER, usersAccount.getId());
         return ok(null, "User account Deactivated successfully");
     }
 
-    public ResponseEntity<ResponseDto<List<UsersAccount>>> retrieve() {
-        List<UsersAccount> usersAccountList = userAccountRepository.findAll();
-        return ok(usersAccountList, "Users data retrieve successfully");
+    @Transactional(readOnly = true)
+    public ResponseEntity<ResponseDto<UserAccountSummaryPage>> retrieve(String status, Boolean verified, LocalDateTime createdFrom,
+                                                                        LocalDateTime createdTo, String cursor, Integer size) {
+        AppStatus accountStatus = null;
+        if (status != null) {
+            try {
+                accountStatus = AppStatus.valueOf(status);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Invalid account status");
+            }
+        }
+        int pageSize = size == null ? DEFAULT_USER_PAGE_SIZE : Math.max(1, Math.min(size, MAX_USER_PAGE_SIZE));
+        long afterId = cursor != null ? decodeCursor(cursor) : 0L;
+
+        // One extra row tells us whether another page follows
+        List<UserAccountSummary> users = userAccountRepository.findSummaryPage(afterId, accountStatus, verified, createdFrom, createdTo,
+                PageRequest.of(0, pageSize + 1));
+        String nextCursor = null;
+        if (users.size() > pageSize) {
+            users = users.subList(0, pageSize);
+            nextCursor = encodeCursor(users.get(pageSize - 1).getId());
+        }
+        return ok(new UserAccountSummaryPage(users, nextCursor), "Users data retrieve successfully");
+    }
+
+    private static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid user listing cursor");
+        }
     }
 
-    public JwtAuthenticationResponse loginUser(LoginRequest request) {
+    public JwtAuthenticationResponse loginUser(LoginRequest request, String clientAddress) {
+        loginThrottleService.acquire(request.getEmail(), clientAddress);
         authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(
                 request.getEmail(), request.getPassword()));
+        loginThrottleService.succeeded(request.getEmail());
         UsersAccount user = userAccountRepository.findByEmail(request.getEmail()).orElseThrow(() -> new IllegalArgumentException("Invalid email or password ..."));
         String jwt = jwtService.generateToken(user);
         String refreshToken = jwtService.generateRefreshToken(new HashMap<>(), user);
@@ -0,0 +1,363 @@
+package com.fintech.service;
+
+import com.fintech.exception.VelocityLimitExceededException;
+import com.fintech.model.Money;
+import com.fintech.model.enums.TransactionType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-account velocity limits, such as at most 10 withdrawals a minute or 5,000,000.00 withdrawn a day.
+ * Every account keeps, per transaction type and window, a ring of time buckets with running totals, so a check
+ * is a few array reads under that account's own lock and never waits on another account. Windows slide a bucket
+ * at a time, so a minute limit counts the last 55 to 60 seconds, an hour limit the last 55 to 60 minutes and
+ * a day limit the last 23 to 24 hours.
+ *
+ * The counts are held in memory on each node and reloaded from the last day of transactions on start. With
+ * several nodes, each enforces the limits over the requests it serves. Accounts idle for longer than the longest
+ * window have nothing left to count and are dropped by a sweep every sweep-interval-ms.
+ */
+@Slf4j
+@Service
+public class VelocityLimitService {
+    private static final String SELECT_RECENT_SQL = "select user_id, transaction_type, amount, transaction_date from transactions " +
+            "where transaction_date >= ? and transaction_date < ? order by transaction_date, id";
+
+    public enum Window {
+        MINUTE(5_000, 12),
+        HOUR(300_000, 12),
+        DAY(3_600_000, 24);
+
+        private final long bucketMs;
+        private final int buckets;
+
+        Window(long bucketMs, int buckets) {
+            this.bucketMs = bucketMs;
+            this.buckets = buckets;
+        }
+
+        long spanMs() {
+            return bucketMs * buckets;
+        }
+    }
+
+    public enum Measure {
+        COUNT,
+        AMOUNT
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int fetchSize;
+    private final long sweepIntervalMs;
+    private final long longestSpanMs;
+    private final Map<TransactionType, List<Rule>> rulesByType = new EnumMap<>(TransactionType.class);
+    // The windows each type has limits on; an account's counters for the type line up with these
+    private final Map<TransactionType, Window[]> windowsByType = new EnumMap<>(TransactionType.class);
+    private final Map<Long, AccountVelocity> accounts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "velocity-limit-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public VelocityLimitService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                @Value("${fintech.velocity.limits:}") String[] limits,
+                                @Value("${fintech.velocity.fetch-size:1000}") int fetchSize,
+                                @Value("${fintech.velocity.sweep-interval-ms:60000}") long sweepIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.fetchSize = fetchSize;
+        this.sweepIntervalMs = sweepIntervalMs;
+        long longestSpanMs = 0;
+        for (String limit : limits) {
+            if (!limit.isBlank()) {
+                Rule rule = Rule.parse(limit.trim());
+                rulesByType.computeIfAbsent(rule.type, type -> new ArrayList<>()).add(rule);
+                longestSpanMs = Math.max(longestSpanMs, rule.window.spanMs());
+            }
+        }
+        rulesByType.forEach((type, rules) -> {
+            Window[] windows = rules.stream().map(rule -> rule.window).distinct().toArray(Window[]::new);
+            for (Rule rule : rules) {
+                rule.counterIndex = Arrays.asList(windows).indexOf(rule.window);
+            }
+            windowsByType.put(type, windows);
+        });
+        this.longestSpanMs = longestSpanMs;
+        Gauge.builder("velocity.accounts", accounts, Map::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!rulesByType.isEmpty()) {
+            executor.scheduleWithFixedDelay(this::sweep, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Counts the transaction against the account's limits, or throws {@link VelocityLimitExceededException} if it
+     * would break one. Inside a transaction the count is taken back if it rolls back.
+     */
+    public void check(Long userId, TransactionType type, Money amount) {
+        List<Rule> rules = rulesByType.get(type);
+        if (rules == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        AccountVelocity account;
+        do {
+            account = accounts.computeIfAbsent(userId, id -> new AccountVelocity());
+        } while (!check(account, rules, type, amount, now));
+        AccountVelocity counted = account;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        record(counted, type, -1, -amount.getMinorUnits(), now);
+                    }
+                }
+            });
+        }
+    }
+
+    // False when the sweep dropped the account in the meantime
+    private boolean check(AccountVelocity account, List<Rule> rules, TransactionType type, Money amount, long now) {
+        synchronized (account) {
+            if (account.removed) {
+                return false;
+            }
+            WindowCounter[] counters = account.counters(type);
+            for (WindowCounter counter : counters) {
+                counter.advance(now);
+            }
+            for (Rule rule : rules) {
+                WindowCounter counter = counters[rule.counterIndex];
+                long used = rule.measure == Measure.COUNT ? counter.count : counter.amount;
+                long adding = rule.measure == Measure.COUNT ? 1 : amount.getMinorUnits();
+                if (used + adding > rule.limit) {
+                    throw reject(rule, counter, used, adding, now);
+                }
+            }
+            for (WindowCounter counter : counters) {
+                counter.add(now, 1, amount.getMinorUnits());
+            }
+            account.lastUsedMs = Math.max(account.lastUsedMs, now);
+            return true;
+        }
+    }
+
+    // Runs before the readiness probe reports ready, so traffic is only routed here once the counts are back
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (rulesByType.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int[] loaded = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_RECENT_SQL);
+            statement.setFetchSize(fetchSize);
+            statement.setTimestamp(1, new Timestamp(now - longestSpanMs));
+            statement.setTimestamp(2, new Timestamp(now));
+            return statement;
+        }, rs -> {
+            TransactionType type = TransactionType.valueOf(rs.getString(2));
+            if (rulesByType.containsKey(type)) {
+                record(rs.getLong(1), type, Money.of(rs.getBigDecimal(3)), rs.getTimestamp(4).getTime());
+                loaded[0]++;
+            }
+        });
+        log.info("Velocity limits loaded {} transactions from the last {} ms", loaded[0], longestSpanMs);
+    }
+
+    private void record(Long userId, TransactionType type, Money amount, long timeMs) {
+        AccountVelocity account;
+        do {
+            account = accounts.computeIfAbsent(userId, id -> new AccountVelocity());
+        } while (!record(account, type, 1, amount.getMinorUnits(), timeMs));
+    }
+
+    private static boolean record(AccountVelocity account, TransactionType type, int count, long amount, long timeMs) {
+        synchronized (account) {
+            if (account.removed) {
+                return false;
+            }
+            for (WindowCounter counter : account.counters(type)) {
+                counter.advance(timeMs);
+                counter.add(timeMs, count, amount);
+            }
+            account.lastUsedMs = Math.max(account.lastUsedMs, timeMs);
+            return true;
+        }
+    }
+
+    private void sweep() {
+        long idleBefore = System.currentTimeMillis() - longestSpanMs;
+        accounts.forEach((userId, account) -> {
+            synchronized (account) {
+                if (account.lastUsedMs < idleBefore) {
+                    account.removed = true;
+                    accounts.remove(userId, account);
+                }
+            }
+        });
+    }
+
+    private VelocityLimitExceededException reject(Rule rule, WindowCounter counter, long used, long adding, long now) {
+        meterRegistry.counter("velocity.rejections", "type", rule.type.name(), "window", rule.window.name(),
+                "measure", rule.measure.name()).increment();
+        Long retryAfterSeconds = null;
+        if (adding <= rule.limit) {
+            long waitMs = counter.msUntilFreed(used + adding - rule.limit, rule.measure == Measure.AMOUNT, now);
+            retryAfterSeconds = Math.max(1, (waitMs + 999) / 1000);
+        }
+        return new VelocityLimitExceededException(rule.type, rule.window.name(), rule.measure.name(),
+                toNumber(rule, rule.limit), toNumber(rule, used), retryAfterSeconds);
+    }
+
+    private static BigDecimal toNumber(Rule rule, long value) {
+        return rule.measure == Measure.AMOUNT ? Money.ofMinor(value).toBigDecimal() : BigDecimal.valueOf(value);
+    }
+
+    // TYPE:WINDOW:MEASURE:LIMIT, e.g. WITHDRAWAL:DAY:AMOUNT:5000000.00
+    private static final class Rule {
+        private final TransactionType type;
+        private final Window window;
+        private final Measure measure;
+        private final long limit;  // A count, or an amount in minor units
+        private int counterIndex;
+
+        private Rule(TransactionType type, Window window, Measure measure, long limit) {
+            this.type = type;
+            this.window = window;
+            this.measure = measure;
+            this.limit = limit;
+        }
+
+        static Rule parse(String spec) {
+            String[] parts = spec.split(":");
+            try {
+                if (parts.length != 4) {
+                    throw new IllegalArgumentException("expected 4 parts");
+                }
+                Measure measure = Measure.valueOf(parts[2].trim());
+                long limit = measure == Measure.AMOUNT ? Money.of(new BigDecimal(parts[3].trim())).getMinorUnits()
+                        : Long.parseLong(parts[3].trim());
+                return new Rule(TransactionType.valueOf(parts[0].trim()), Window.valueOf(parts[1].trim()), measure, limit);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid velocity limit '" + spec + "', expected TYPE:WINDOW:COUNT|AMOUNT:LIMIT", e);
+            }
+        }
+    }
+
+    // Guarded by its own monitor
+    private final class AccountVelocity {
+        private final WindowCounter[][] countersByType = new WindowCounter[TransactionType.values().length][];
+        private long lastUsedMs;
+        private boolean removed;  // Dropped by the sweep; whoever still holds it looks it up again
+
+        WindowCounter[] counters(TransactionType type) {
+            WindowCounter[] counters = countersByType[type.ordinal()];
+            if (counters == null) {
+                Window[] windows = windowsByType.get(type);
+                counters = new WindowCounter[windows.length];
+                for (int i = 0; i < windows.length; i++) {
+                    counters[i] = new WindowCounter(windows[i]);
+                }
+                countersByType[type.ordinal()] = counters;
+            }
+            return counters;
+        }
+    }
+
+    // The last window.buckets buckets of one account and type, with their totals kept as buckets come and go
+    private static final class WindowCounter {
+        private final Window window;
+        private final long[] slots;  // The count and the amount of each bucket, side by side
+        private long head = -1;  // The newest bucket, counted in bucket lengths since the epoch
+        private long count;
+        private long amount;
+
+        WindowCounter(Window window) {
+            this.window = window;
+            this.slots = new long[window.buckets * 2];
+        }
+
+        void advance(long timeMs) {
+            long bucket = timeMs / window.bucketMs;
+            if (bucket <= head) {
+                return;
+            }
+            if (bucket - head >= window.buckets) {
+                Arrays.fill(slots, 0);
+                count = 0;
+                amount = 0;
+            } else {
+                for (long b = head + 1; b <= bucket; b++) {
+                    int slot = (int) (b % window.buckets) * 2;
+                    count -= slots[slot];
+                    amount -= slots[slot + 1];
+                    slots[slot] = 0;
+                    slots[slot + 1] = 0;
+                }
+            }
+            head = bucket;
+        }
+
+        // After advance, so the bucket is never newer than head; buckets already out of the window are ignored
+        void add(long timeMs, int count, long amount) {
+            long bucket = timeMs / window.bucketMs;
+            if (head - bucket >= window.buckets) {
+                return;
+            }
+            int slot = (int) (bucket % window.buckets) * 2;
+            slots[slot] += count;
+            slots[slot + 1] += amount;
+            this.count += count;
+            this.amount += amount;
+        }
+
+        // How long until enough of the oldest buckets have left the window to free `needed`
+        long msUntilFreed(long needed, boolean byAmount, long now) {
+            long freed = 0;
+            for (long b = head - window.buckets + 1; b <= head; b++) {
+                int slot = (int) Math.floorMod(b, (long) window.buckets) * 2;
+                freed += byAmount ? slots[slot + 1] : slots[slot];
+                if (freed >= needed) {
+                    return (b + window.buckets) * window.bucketMs - now;
+                }
+            }
+            return window.spanMs();
+        }
+    }
+}
@@ -1,31 +1,31 @@
 package com.fintech.util;
 
-import com.fintech.model.Admin;
-import com.fintech.model.UsersAccount;
+import com.fintech.dto.JwtPrincipal;
+import com.fintech.model.enums.Role;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.stereotype.Service;
 
 
 public class SecurityUtil {
     public static Long getCurrentUserId() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-
-        if (authentication != null && authentication.getPrincipal() instanceof UsersAccount) {
-            UsersAccount userDetails = (UsersAccount) authentication.getPrincipal();
-            return userDetails.getId();
-        }
-        return null;
+        JwtPrincipal principal = currentPrincipal(Role.USER);
+        return principal == null ? null : principal.getId();
     }
 
     public static String getAdminIdFromContext() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        JwtPrincipal principal = currentPrincipal(Role.ADMIN);
+        return principal == null ? null : principal.getEmail();  // Admin is not authenticated or does not have a valid principal
+    }
 
-        if (authentication != null && authentication.getPrincipal() instanceof Admin) {
-            Admin userDetails = (Admin) authentication.getPrincipal();
-                return userDetails.getUsername();  // Or return another attribute that identifies the admin
+    private static JwtPrincipal currentPrincipal(Role role) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
+        if (authentication != null && authentication.getPrincipal() instanceof JwtPrincipal) {
+            JwtPrincipal principal = (JwtPrincipal) authentication.getPrincipal();
+            if (principal.getRole() == role) {
+                return principal;
+            }
         }
-        return null;  // Admin is not authenticated or does not have a valid principal
+        return null;
     }
 }
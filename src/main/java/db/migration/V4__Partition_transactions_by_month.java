@@ -0,0 +1,74 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Range-partitions transactions by month of transaction_date, from the month of the oldest row to three
+ * months ahead; TransactionArchiveService adds later months as they come up. A Java migration because the
+ * partition list depends on the data.
+ *
+ * MySQL requires every unique key of a partitioned table to include the partitioning column and does not
+ * allow foreign keys on it, so the primary key becomes (id, transaction_date) and the foreign keys to
+ * users_account, loan and admin are dropped. Ids are still unique, as they come from transactions_seq.
+ * The table is copied once, so run this in a maintenance window on a large ledger.
+ */
+public class V4__Partition_transactions_by_month extends BaseJavaMigration {
+    private static final int MONTHS_AHEAD = 3;
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        // Partitioning is MySQL's; other databases keep the plain table
+        if (!"MySQL".equals(connection.getMetaData().getDatabaseProductName())) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String foreignKey : foreignKeys(statement)) {
+                statement.execute("alter table transactions drop foreign key " + foreignKey);
+            }
+            statement.execute("alter table transactions modify transaction_date datetime(6) not null, " +
+                    "drop primary key, add primary key (id, transaction_date)");
+            statement.execute("alter table transactions partition by range columns (transaction_date) (" + partitions(statement) + ")");
+        }
+    }
+
+    private static List<String> foreignKeys(Statement statement) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery("select constraint_name from information_schema.table_constraints " +
+                "where table_schema = database() and table_name = 'transactions' and constraint_type = 'FOREIGN KEY'")) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+
+    private static String partitions(Statement statement) throws SQLException {
+        YearMonth first = YearMonth.now();
+        try (ResultSet rs = statement.executeQuery("select min(transaction_date) from transactions")) {
+            Timestamp oldest = rs.next() ? rs.getTimestamp(1) : null;
+            if (oldest != null) {
+                first = YearMonth.from(oldest.toLocalDateTime());
+            }
+        }
+        StringBuilder partitions = new StringBuilder();
+        for (YearMonth month = first; !month.isAfter(YearMonth.now().plusMonths(MONTHS_AHEAD)); month = month.plusMonths(1)) {
+            partitions.append("partition p").append(month.format(PARTITION_MONTH))
+                    .append(" values less than ('").append(month.plusMonths(1).atDay(1)).append("'), ");
+        }
+        // Catches rows dated past the last month; kept empty by the maintenance job
+        return partitions.append("partition p_future values less than (maxvalue)").toString();
+    }
+}
@@ -0,0 +1,2 @@
+-- Tokens issued before revoked_at are refused for the principal (logout, password change)
+create table principal_revocation (principal_key varchar(255) not null, revoked_at datetime(6), primary key (principal_key)) engine=InnoDB;
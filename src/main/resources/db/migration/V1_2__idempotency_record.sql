@@ -0,0 +1,2 @@
+-- Stored responses of requests sent with an Idempotency-Key
+create table idempotency_record (idempotency_key varchar(255) not null, created_date datetime(6), request_hash varchar(64), response_body longtext, response_status integer, primary key (idempotency_key)) engine=InnoDB;
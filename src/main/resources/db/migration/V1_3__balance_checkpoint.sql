@@ -0,0 +1,5 @@
+-- Account balances as of a ledger position, so balance-as-of and statements sum only the rows after one.
+-- created_date is indexed for the latest-checkpoint lookup on startup.
+create table balance_checkpoint (id bigint not null auto_increment, balance decimal(19,2) not null, created_date datetime(6), transaction_date datetime(6) not null, transaction_id bigint not null, user_id bigint not null, primary key (id)) engine=InnoDB;
+create index idx_balance_checkpoint_position on balance_checkpoint (user_id, transaction_date, transaction_id);
+create index idx_balance_checkpoint_created_date on balance_checkpoint (created_date);
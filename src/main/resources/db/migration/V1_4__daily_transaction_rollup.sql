@@ -0,0 +1,4 @@
+-- Daily totals per account and transaction type, and how far into the ledger they have been rolled up
+create table daily_transaction_rollup (id bigint not null auto_increment, rollup_date date not null, total_amount decimal(19,2) not null, transaction_count bigint not null, transaction_type varchar(255) not null, user_id bigint not null, primary key (id)) engine=InnoDB;
+alter table daily_transaction_rollup add constraint uk_daily_rollup unique (user_id, rollup_date, transaction_type);
+create table rollup_watermark (name varchar(255) not null, last_transaction_date datetime(6) not null, last_transaction_id bigint not null, updated_date datetime(6), primary key (name)) engine=InnoDB;
@@ -0,0 +1,8 @@
+-- Installment schedules. Loans from before schedules existed were priced with flat interest.
+alter table loan add column repayment_method varchar(255);
+update loan set repayment_method = 'FLAT' where repayment_method is null;
+create table loan_installment (id bigint not null, balance_after decimal(19,2) not null, due_date date not null, installment_number integer not null, interest_due decimal(19,2) not null, principal_due decimal(19,2) not null, total_due decimal(19,2) not null, loan_id bigint not null, primary key (id)) engine=InnoDB;
+create table loan_installment_seq (next_val bigint) engine=InnoDB;
+insert into loan_installment_seq values ( 1 );
+alter table loan_installment add constraint uk_loan_installment unique (loan_id, installment_number);
+alter table loan_installment add constraint FKpii2hd44b4ih32usrb3lyck2p foreign key (loan_id) references loan (id);
@@ -0,0 +1,3 @@
+-- The admin user listing pages by id under status/verified and created-date filters
+create index idx_users_account_status_verified on users_account (account_status, is_verified, id);
+create index idx_users_account_created_date on users_account (created_date, id);
@@ -0,0 +1,2 @@
+-- Cache evictions every node replays, so cached admin and account rows are dropped cluster-wide
+create table cache_invalidation (id bigint not null auto_increment, cache_name varchar(255) not null, created_date datetime(6) not null, entry_key varchar(255) not null, primary key (id)) engine=InnoDB;
@@ -0,0 +1,2 @@
+-- Written on the primary and read on the replica to measure replication lag
+create table replication_heartbeat (id integer not null, beat_at datetime(6) not null, primary key (id)) engine=InnoDB;
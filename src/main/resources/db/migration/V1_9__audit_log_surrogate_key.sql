@@ -0,0 +1,8 @@
+-- audit_log was keyed on action_type, so only one row per action type could ever be stored. It gets an
+-- auto-increment surrogate key and no longer needs audit_log_seq.
+-- The entity id sequences need no change for pooled allocation: pooled-lo reads next_val as the first id of a
+-- block and advances it by the allocation size in one update, so every node reserves a disjoint block.
+alter table audit_log drop primary key;
+alter table audit_log add column id bigint not null auto_increment primary key first;
+alter table audit_log modify action_type varchar(255) null;
+drop table if exists audit_log_seq;
@@ -0,0 +1,29 @@
+-- Baseline: the schema of the original application, as in fintech_app.sql (created there by
+-- spring.jpa.hibernate.ddl-auto=update). The tables here take the server's default character set, as
+-- they did then. Everything changed since comes in the V1_x migrations after it.
+-- A database that already has these tables is baselined at this version instead of running it
+-- (spring.flyway.baseline-on-migrate).
+
+create table admin (id bigint not null, account_status varchar(255), created_date datetime(6), email varchar(255), password varchar(255), phone_number varchar(255), role varchar(255), updated_date datetime(6), full_name varchar(255), primary key (id)) engine=InnoDB;
+create table admin_seq (next_val bigint) engine=InnoDB;
+insert into admin_seq values ( 1 );
+create table audit_log (action_type varchar(255) not null, admin_id varchar(255), created_date datetime(6), details varchar(255), timestamp datetime(6), updated_date datetime(6), user_id bigint, primary key (action_type)) engine=InnoDB;
+create table audit_log_seq (next_val bigint) engine=InnoDB;
+insert into audit_log_seq values ( 1 );
+create table loan (id bigint not null, created_date datetime(6), disburstment_date datetime(6), interest_rate decimal(19,2), laon_amount decimal(19,2), status varchar(255), tenure integer, total_amount decimal(19,2), updated_date datetime(6), admin_id bigint, user_id bigint, verified_by bigint, narration varchar(255), primary key (id), key FK681hgebvdphygxw4voglktpej (admin_id), key FK2diwqxg8wh0nwkggooo2d0mcm (user_id), key FKjm1bo17qp6e7bafa6esdl1m3l (verified_by)) engine=InnoDB;
+create table loan_seq (next_val bigint) engine=InnoDB;
+insert into loan_seq values ( 1 );
+create table transactions (id bigint not null, amount decimal(19,2), app_status varchar(255), transaction_date datetime(6), transaction_type varchar(255), loan_id bigint, user_id bigint, verified_by bigint, primary key (id), key FK5xi4iho1g8h7mqkafhua6dsfw (loan_id), key FK5e42ccllwprqobkebsd451rco (user_id), key FK4rwre6vaokkc7tvc8okuw4no0 (verified_by)) engine=InnoDB;
+create table transactions_seq (next_val bigint) engine=InnoDB;
+insert into transactions_seq values ( 1 );
+create table users_account (id bigint not null, account_balance decimal(19,2), account_status varchar(255), address varchar(255), bvn varchar(255), created_date datetime(6), date_of_birth varchar(255), email varchar(255), full_name varchar(255), gender varchar(255), is_verified bit, password varchar(255), phone_number varchar(255), role varchar(255), updated_date datetime(6), verified_by bigint, primary key (id), key FKfwpwb38k4qwsu8po2ate9xb5n (verified_by)) engine=InnoDB;
+create table users_account_seq (next_val bigint) engine=InnoDB;
+insert into users_account_seq values ( 1 );
+
+alter table loan add constraint FK681hgebvdphygxw4voglktpej foreign key (admin_id) references admin (id);
+alter table loan add constraint FK2diwqxg8wh0nwkggooo2d0mcm foreign key (user_id) references users_account (id);
+alter table loan add constraint FKjm1bo17qp6e7bafa6esdl1m3l foreign key (verified_by) references admin (id);
+alter table transactions add constraint FK5xi4iho1g8h7mqkafhua6dsfw foreign key (loan_id) references loan (id);
+alter table transactions add constraint FK5e42ccllwprqobkebsd451rco foreign key (user_id) references users_account (id);
+alter table transactions add constraint FK4rwre6vaokkc7tvc8okuw4no0 foreign key (verified_by) references admin (id);
+alter table users_account add constraint FKfwpwb38k4qwsu8po2ate9xb5n foreign key (verified_by) references admin (id);
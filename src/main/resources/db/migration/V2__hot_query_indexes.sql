@@ -0,0 +1,20 @@
+-- Indexes for the queries on the request paths, which were all full scans.
+-- Creating the unique email indexes fails if duplicate emails already exist; those rows need merging first.
+
+-- Login and the user details lookup (findByEmail)
+create unique index uk_users_account_email on users_account (email);
+create unique index uk_admin_email on admin (email);
+
+-- apply-loan's outstanding loan check and fetch-loan (user_id, status), the loan book by status
+create index idx_loan_user_status on loan (user_id, status);
+create index idx_loan_status on loan (status);
+
+-- Statement pages, streams and balance sums walk one account's ledger in (transaction_date, id) order;
+-- the rollup and checkpoint recovery scan the whole ledger in that order
+create index idx_transactions_user_date on transactions (user_id, transaction_date, id);
+create index idx_transactions_date on transactions (transaction_date, id);
+
+-- Periodic reloads and purges by age
+create index idx_principal_revocation_revoked_at on principal_revocation (revoked_at);
+create index idx_idempotency_record_created_date on idempotency_record (created_date);
+create index idx_cache_invalidation_created_date on cache_invalidation (created_date);
@@ -0,0 +1,4 @@
+-- Archived months of transactions and where each account's rows sit in the archive files
+create table transaction_archive (period_start date not null, archived_date datetime(6), claimed_date datetime(6) not null, dropped_date datetime(6), file_name varchar(255), partition_name varchar(255) not null, period_end date not null, row_count bigint, sha256 varchar(64), status varchar(255) not null, primary key (period_start)) engine=InnoDB;
+create table transaction_archive_segment (id bigint not null auto_increment, byte_length integer not null, byte_offset bigint not null, first_transaction_date datetime(6) not null, last_transaction_date datetime(6) not null, last_transaction_id bigint not null, period_start date not null, row_count integer not null, user_id bigint, primary key (id)) engine=InnoDB;
+create index idx_transaction_archive_segment_user on transaction_archive_segment (user_id, first_transaction_date);
@@ -0,0 +1,5 @@
+-- Domain events written with the change that caused them, until every consumer of the in-process bus has had them
+create table outbox_event (id bigint not null, aggregate_id bigint, claimed_date datetime(6) not null, created_date datetime(6) not null, event_type varchar(255) not null, payload varchar(4000) not null, published_date datetime(6), primary key (id)) engine=InnoDB;
+create table outbox_event_seq (next_val bigint) engine=InnoDB;
+insert into outbox_event_seq values ( 1 );
+create index idx_outbox_event_unpublished on outbox_event (published_date, claimed_date);
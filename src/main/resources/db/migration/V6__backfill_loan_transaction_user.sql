@@ -0,0 +1,7 @@
+-- Disbursement and repayment rows written before they carried the borrower's user_id only point at the loan,
+-- so statements, balance sums and rollups missed them. The owner is the loan's user.
+update transactions
+set user_id = (select l.user_id from loan l where l.id = transactions.loan_id)
+where user_id is null
+  and loan_id is not null
+  and transaction_type in ('DISBURSEMENT', 'REPAYMENT');
@@ -0,0 +1,176 @@
+package com.fintech.perf;
+
+import com.fintech.model.Money;
+import com.fintech.model.enums.AppStatus;
+import com.fintech.model.enums.LoanStatus;
+import com.fintech.model.enums.RepaymentMethod;
+import com.fintech.model.enums.Role;
+import com.fintech.model.enums.TransactionType;
+import com.fintech.service.LoanService;
+import com.fintech.util.AmortizationCalculator;
+import com.fintech.util.AmortizationCalculator.Schedule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeds the embedded perf database with users, disbursed loans and their ledger before the load
+ * driver starts. Rows are written with JDBC batches and explicit ids, and the id sequences are then
+ * moved past them so the application carries on from there. Every account balance matches its ledger.
+ */
+@Slf4j
+@Component
+@Profile("perf")
+@Order(1)
+public class PerfDataGenerator implements ApplicationRunner {
+    public static final long ADMIN_ID = 1L;
+    public static final String ADMIN_EMAIL = "perf-admin@fintech.test";
+
+    private static final String INSERT_ADMIN_SQL = "insert into admin (id, full_name, email, phone_number, password, account_status, role, created_date) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_USER_SQL = "insert into users_account (id, full_name, date_of_birth, email, phone_number, password, address, gender, " +
+            "account_balance, bvn, is_verified, account_status, role, created_date, verified_by) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_LOAN_SQL = "insert into loan (id, laon_amount, tenure, interest_rate, narration, total_amount, disburstment_date, status, " +
+            "repayment_method, user_id, admin_id, created_date) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_TRANSACTION_SQL = "insert into transactions (id, amount, transaction_type, transaction_date, app_status, user_id, loan_id, verified_by) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int[] TENURES = {3, 6, 12, 24, 36};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final LoanService loanService;
+    private final int users;
+    private final int loansPerUser;
+    private final int transactionsPerUser;
+    private final int historyDays;
+    private final int batchSize;
+    private final String password;
+    private final long seed;
+
+    public PerfDataGenerator(JdbcTemplate jdbcTemplate, PasswordEncoder passwordEncoder, LoanService loanService,
+                             @Value("${fintech.perf.data.users}") int users,
+                             @Value("${fintech.perf.data.loans-per-user}") int loansPerUser,
+                             @Value("${fintech.perf.data.transactions-per-user}") int transactionsPerUser,
+                             @Value("${fintech.perf.data.history-days}") int historyDays,
+                             @Value("${fintech.perf.data.batch-size}") int batchSize,
+                             @Value("${fintech.perf.data.password}") String password,
+                             @Value("${fintech.perf.data.seed}") long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.loanService = loanService;
+        this.users = users;
+        this.loansPerUser = loansPerUser;
+        this.transactionsPerUser = transactionsPerUser;
+        this.historyDays = historyDays;
+        this.batchSize = batchSize;
+        this.password = password;
+        this.seed = seed;
+    }
+
+    public static String userEmail(long userId) {
+        return "perf-user-" + userId + "@fintech.test";
+    }
+
+    // Loan ids are handed out in user order, loansPerUser at a time
+    public static long loanId(long userId, int loansPerUser, int index) {
+        return (userId - 1) * loansPerUser + index + 1;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Long existing = jdbcTemplate.queryForObject("select count(*) from users_account", Long.class);
+        if (existing != null && existing > 0) {
+            log.info("Perf database already has {} users, not seeding", existing);
+            return;
+        }
+        long started = System.nanoTime();
+        // Hashed once: BCrypt per row would take longer than the rest of the seeding
+        String passwordHash = passwordEncoder.encode(password);
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(INSERT_ADMIN_SQL, ADMIN_ID, "Perf Admin", ADMIN_EMAIL, "08000000000", passwordHash,
+                AppStatus.COMPLETED.name(), Role.ADMIN.name(), Timestamp.valueOf(now));
+
+        Random random = new Random(seed);
+        Schedule schedule = new Schedule(TENURES[TENURES.length - 1]);
+        List<Object[]> userRows = new ArrayList<>(batchSize);
+        List<Object[]> loanRows = new ArrayList<>(batchSize * loansPerUser);
+        List<Object[]> transactionRows = new ArrayList<>(batchSize * (loansPerUser + transactionsPerUser));
+        long transactionId = 0;
+        for (long userId = 1; userId <= users; userId++) {
+            LocalDateTime date = now.minusDays(historyDays).plusMinutes(random.nextInt(24 * 60));
+            long stepMinutes = Math.max(1, (long) historyDays * 24 * 60 / (loansPerUser + transactionsPerUser + 1));
+            long balance = 0;
+
+            for (int i = 0; i < loansPerUser; i++) {
+                long loanId = loanId(userId, loansPerUser, i);
+                Money amount = Money.ofMajor(500 + random.nextInt(50_000));
+                int tenure = TENURES[random.nextInt(TENURES.length)];
+                RepaymentMethod method = random.nextBoolean() ? RepaymentMethod.FLAT : RepaymentMethod.REDUCING_BALANCE;
+                BigDecimal interestRate = loanService.calculateInterestRate(amount, tenure);
+                AmortizationCalculator.generate(method, amount.getMinorUnits(), AmortizationCalculator.toPartsPerMillion(interestRate), tenure, schedule);
+                Timestamp disbursed = Timestamp.valueOf(date);
+                loanRows.add(new Object[]{loanId, amount.toBigDecimal(), tenure, interestRate, "Seeded for load testing",
+                        amount.plus(Money.ofMinor(schedule.totalInterest())).toBigDecimal(), disbursed, LoanStatus.DISBURSED.name(),
+                        method.name(), userId, ADMIN_ID, disbursed});
+                transactionRows.add(new Object[]{++transactionId, amount.toBigDecimal(), TransactionType.DISBURSEMENT.name(), disbursed,
+                        AppStatus.COMPLETED.name(), userId, loanId, ADMIN_ID});
+                balance += amount.getMinorUnits();
+                date = date.plusMinutes(1 + random.nextInt((int) Math.min(Integer.MAX_VALUE, stepMinutes)));
+            }
+            for (int i = 0; i < transactionsPerUser; i++) {
+                long amount = 100 + random.nextInt(2_000_000);
+                TransactionType type = random.nextInt(3) == 0 && amount <= balance ? TransactionType.WITHDRAWAL : TransactionType.DEPOSIT;
+                balance += type.isCredit() ? amount : -amount;
+                transactionRows.add(new Object[]{++transactionId, Money.ofMinor(amount).toBigDecimal(), type.name(), Timestamp.valueOf(date),
+                        AppStatus.COMPLETED.name(), userId, null, null});
+                date = date.plusMinutes(1 + random.nextInt((int) Math.min(Integer.MAX_VALUE, stepMinutes)));
+            }
+            userRows.add(new Object[]{userId, "Perf User " + userId, "1990-01-01", userEmail(userId), "0800" + (1_000_000 + userId % 9_000_000),
+                    passwordHash, "1 Load Test Street", userId % 2 == 0 ? "F" : "M", Money.ofMinor(balance).toBigDecimal(),
+                    String.valueOf(10_000_000_000L + userId), true, AppStatus.COMPLETED.name(), Role.USER.name(), Timestamp.valueOf(now), ADMIN_ID});
+
+            if (userRows.size() == batchSize || userId == users) {
+                // Users first, so the loan and transaction foreign keys resolve
+                insert(INSERT_USER_SQL, userRows);
+                insert(INSERT_LOAN_SQL, loanRows);
+                insert(INSERT_TRANSACTION_SQL, transactionRows);
+                if (userId % (batchSize * 10L) == 0) {
+                    log.info("Seeded {} of {} users", userId, users);
+                }
+            }
+        }
+        restartSequence("admin_seq", ADMIN_ID + 1);
+        restartSequence("users_account_seq", users + 1L);
+        restartSequence("loan_seq", (long) users * loansPerUser + 1);
+        restartSequence("transactions_seq", transactionId + 1);
+        log.info("Seeded {} users, {} loans and {} transactions in {} ms", users, (long) users * loansPerUser, transactionId,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void insert(String sql, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(sql, rows, batchSize, (ps, row) -> {
+            for (int i = 0; i < row.length; i++) {
+                ps.setObject(i + 1, row[i]);
+            }
+        });
+        rows.clear();
+    }
+
+    // With pooled-lo ids the next block starts at the sequence value itself
+    private void restartSequence(String sequence, long next) {
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + next);
+    }
+}
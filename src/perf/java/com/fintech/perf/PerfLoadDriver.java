@@ -0,0 +1,406 @@
+package com.fintech.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintech.model.Admin;
+import com.fintech.model.Money;
+import com.fintech.model.UsersAccount;
+import com.fintech.model.enums.AppStatus;
+import com.fintech.model.enums.TransactionType;
+import com.fintech.service.IdempotencyService;
+import com.fintech.service.JWTService;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Replays a weighted mix of the main endpoints against the running application over HTTP once it is
+ * ready and the perf data is seeded, then reports throughput and latency percentiles per endpoint.
+ * Workers send requests back to back (a closed loop), so throughput is what the application sustains
+ * at the configured concurrency. Calls other than login carry tokens minted in-process, the same ones
+ * login would return, so BCrypt cost only shows up in the login figures. Bulk requests carry bulk-size
+ * items each, so their rows per second can be set against single apply-transaction calls. Writes carry a fresh
+ * Idempotency-Key, except for a share of apply-transaction calls sent without one, so the cost of recording
+ * the key is reported from the same run.
+ *
+ * Once the load has stopped every account balance is checked against the signed sum of its ledger, so
+ * concurrent writes to the hot accounts that lost an update or overdrew one fail the run.
+ */
+@Slf4j
+@Component
+@Profile("perf")
+@ConditionalOnProperty(name = "fintech.perf.driver.enabled", havingValue = "true")
+public class PerfLoadDriver {
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int MAX_REPORTED_MISMATCHES = 20;
+    private static final String CREDIT_TYPES = TransactionType.CREDITS.stream()
+            .map(type -> "'" + type.name() + "'").collect(Collectors.joining(", "));
+    // Accounts whose balance is not the net of their ledger, or is negative
+    private static final String MISMATCH_SQL = "select u.id, u.account_balance, coalesce(sum(case when t.transaction_type in (" + CREDIT_TYPES + ") " +
+            "then t.amount else -t.amount end), 0) as ledger_balance from users_account u left join transactions t on t.user_id = u.id " +
+            "group by u.id, u.account_balance having u.account_balance <> coalesce(sum(case when t.transaction_type in (" + CREDIT_TYPES + ") " +
+            "then t.amount else -t.amount end), 0) or u.account_balance < 0 order by u.id";
+
+    private final JWTService jwtService;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final Map<Long, String> userTokens = new ConcurrentHashMap<>();
+    private final Operation[] weightedOperations;
+    private final int users;
+    private final int loansPerUser;
+    private final String password;
+    private final int threads;
+    private final int warmupSeconds;
+    private final int durationSeconds;
+    private final int hotAccounts;
+    private final int bulkSize;
+    private final double hotFraction;
+    private final String reportFile;
+    private final boolean exitWhenDone;
+    private String baseUrl;
+    private String adminToken;
+
+    public PerfLoadDriver(JWTService jwtService, ObjectMapper objectMapper, JdbcTemplate jdbcTemplate,
+                          @Value("${fintech.perf.data.users}") int users,
+                          @Value("${fintech.perf.data.loans-per-user}") int loansPerUser,
+                          @Value("${fintech.perf.data.password}") String password,
+                          @Value("${fintech.perf.driver.threads}") int threads,
+                          @Value("${fintech.perf.driver.warmup-seconds}") int warmupSeconds,
+                          @Value("${fintech.perf.driver.duration-seconds}") int durationSeconds,
+                          @Value("${fintech.perf.driver.hot-accounts}") int hotAccounts,
+                          @Value("${fintech.perf.driver.hot-fraction}") double hotFraction,
+                          @Value("${fintech.perf.driver.weight.login}") int loginWeight,
+                          @Value("${fintech.perf.driver.weight.apply-transaction}") int applyTransactionWeight,
+                          @Value("${fintech.perf.driver.weight.apply-transaction-no-key}") int applyTransactionNoKeyWeight,
+                          @Value("${fintech.perf.driver.weight.fetch-loan}") int fetchLoanWeight,
+                          @Value("${fintech.perf.driver.weight.fetch-transaction-statement}") int fetchStatementWeight,
+                          @Value("${fintech.perf.driver.weight.record-repayment}") int recordRepaymentWeight,
+                          @Value("${fintech.perf.driver.weight.apply-transaction-bulk}") int applyTransactionBulkWeight,
+                          @Value("${fintech.perf.driver.bulk-size}") int bulkSize,
+                          @Value("${fintech.perf.driver.report-file}") String reportFile,
+                          @Value("${fintech.perf.driver.exit-when-done}") boolean exitWhenDone) {
+        this.jwtService = jwtService;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.users = users;
+        this.loansPerUser = loansPerUser;
+        this.password = password;
+        this.threads = threads;
+        this.warmupSeconds = warmupSeconds;
+        this.durationSeconds = durationSeconds;
+        this.hotAccounts = Math.min(hotAccounts, users);
+        this.hotFraction = hotFraction;
+        this.bulkSize = bulkSize;
+        this.reportFile = reportFile;
+        this.exitWhenDone = exitWhenDone;
+
+        // One slot per unit of weight, so picking a random slot follows the mix
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        weights.put(Operation.LOGIN, loginWeight);
+        weights.put(Operation.APPLY_TRANSACTION, applyTransactionWeight);
+        weights.put(Operation.APPLY_TRANSACTION_NO_KEY, applyTransactionNoKeyWeight);
+        weights.put(Operation.FETCH_LOAN, fetchLoanWeight);
+        weights.put(Operation.FETCH_TRANSACTION_STATEMENT, fetchStatementWeight);
+        weights.put(Operation.RECORD_REPAYMENT, recordRepaymentWeight);
+        weights.put(Operation.APPLY_TRANSACTION_BULK, applyTransactionBulkWeight);
+        List<Operation> slots = new ArrayList<>();
+        weights.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                slots.add(operation);
+            }
+            stats.put(operation, new OperationStats());
+        });
+        if (slots.isEmpty()) {
+            throw new IllegalStateException("At least one fintech.perf.driver.weight must be positive");
+        }
+        this.weightedOperations = slots.toArray(new Operation[0]);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start(ApplicationReadyEvent event) {
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        Thread driver = new Thread(() -> run(context), "perf-load-driver");
+        driver.setDaemon(true);
+        driver.start();
+    }
+
+    private void run(ConfigurableApplicationContext context) {
+        int exitCode = 0;
+        try {
+            adminToken = jwtService.generateToken(Admin.builder().id(PerfDataGenerator.ADMIN_ID)
+                    .email(PerfDataGenerator.ADMIN_EMAIL).accountStatus(AppStatus.COMPLETED).build());
+            log.info("Driving load with {} threads: {}s warmup, {}s measured", threads, warmupSeconds, durationSeconds);
+            long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            long end = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+            ExecutorService workers = Executors.newFixedThreadPool(threads);
+            for (int i = 0; i < threads; i++) {
+                workers.execute(() -> drive(end));
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(0, warmupEnd - System.nanoTime()));
+            stats.values().forEach(OperationStats::reset);
+            long measuredFrom = System.nanoTime();
+            workers.shutdown();
+            if (!workers.awaitTermination(durationSeconds + 60L, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+            double seconds = (System.nanoTime() - measuredFrom) / 1e9;
+            List<Map<String, Object>> mismatches = findBalanceMismatches();
+            report(seconds, mismatches);
+            if (!mismatches.isEmpty()) {
+                log.error("{} account balances do not match their ledger, e.g. {}", mismatches.size(),
+                        mismatches.subList(0, Math.min(MAX_REPORTED_MISMATCHES, mismatches.size())));
+                exitCode = 1;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exitCode = 1;
+        } catch (RuntimeException | IOException e) {
+            log.error("Load driver failed", e);
+            exitCode = 1;
+        }
+        if (exitWhenDone) {
+            int code = exitCode;
+            System.exit(SpringApplication.exit(context, () -> code));
+        }
+    }
+
+    private void drive(long endNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < endNanos && !Thread.currentThread().isInterrupted()) {
+            Operation operation = weightedOperations[random.nextInt(weightedOperations.length)];
+            long userId = pickUser(random);
+            HttpRequest request;
+            try {
+                request = buildRequest(operation, userId, random);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            stats.get(operation).record(httpClient, request);
+        }
+    }
+
+    private HttpRequest buildRequest(Operation operation, long userId, ThreadLocalRandom random) throws IOException {
+        switch (operation) {
+            case LOGIN:
+                return post("/api/auth/login-user", null, Map.of("email", PerfDataGenerator.userEmail(userId), "password", password));
+            case APPLY_TRANSACTION:
+                return post("/api/account/apply-transaction", userToken(userId), transactionItem(userId, random));
+            case APPLY_TRANSACTION_NO_KEY:
+                return post("/api/account/apply-transaction", userToken(userId), transactionItem(userId, random), false);
+            case APPLY_TRANSACTION_BULK:
+                List<Map<String, Object>> items = new ArrayList<>(bulkSize);
+                for (int i = 0; i < bulkSize; i++) {
+                    items.add(transactionItem(pickUser(random), random));
+                }
+                return post("/api/account/apply-transaction/bulk", userToken(userId), items);
+            case FETCH_LOAN:
+                return get("/api/account/fetch-loan?userId=" + userId, userToken(userId));
+            case FETCH_TRANSACTION_STATEMENT:
+                return get("/api/account/fetch-transaction-statement?userId=" + userId + "&size=50", userToken(userId));
+            case RECORD_REPAYMENT:
+                long loanId = PerfDataGenerator.loanId(userId, loansPerUser, random.nextInt(loansPerUser));
+                return post("/api/admin/record-repayment", adminToken, Map.of("loanId", loanId,
+                        "adminId", PerfDataGenerator.ADMIN_ID, "amount", Money.ofMinor(100 + random.nextInt(1_000))));
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    private long pickUser(ThreadLocalRandom random) {
+        return hotAccounts > 0 && random.nextDouble() < hotFraction ? 1 + random.nextInt(hotAccounts) : 1 + random.nextInt(users);
+    }
+
+    // Mostly deposits, so withdrawals seldom run the seeded balances dry
+    private static Map<String, Object> transactionItem(long userId, ThreadLocalRandom random) {
+        boolean withdrawal = random.nextInt(4) == 0;
+        Money amount = Money.ofMinor(withdrawal ? 100 + random.nextInt(5_000) : 100 + random.nextInt(50_000));
+        return Map.of("userId", userId, "transactionType", withdrawal ? "WITHDRAWAL" : "DEPOSIT", "amount", amount);
+    }
+
+    private String userToken(long userId) {
+        return userTokens.computeIfAbsent(userId, id -> jwtService.generateToken(UsersAccount.builder().id(id).email(PerfDataGenerator.userEmail(id))
+                .accountStatus(AppStatus.COMPLETED).build()));
+    }
+
+    private HttpRequest post(String path, String token, Object body) throws IOException {
+        return post(path, token, body, true);
+    }
+
+    private HttpRequest post(String path, String token, Object body, boolean idempotent) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+            if (idempotent) {
+                // Every write is a fresh client request, as a retrying client would send it
+                builder.header(IdempotencyService.HEADER, UUID.randomUUID().toString());
+            }
+        }
+        return builder.timeout(Duration.ofSeconds(30)).build();
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private List<Map<String, Object>> findBalanceMismatches() {
+        long started = System.nanoTime();
+        List<Map<String, Object>> mismatches = jdbcTemplate.queryForList(MISMATCH_SQL);
+        log.info("Checked every account balance against its ledger in {} ms: {} mismatches",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), mismatches.size());
+        return mismatches;
+    }
+
+    private void report(double seconds, List<Map<String, Object>> mismatches) throws IOException {
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+        long totalRequests = 0;
+        StringBuilder table = new StringBuilder(String.format("%n%-30s %9s %9s %9s %7s %7s %9s %9s %9s %9s %9s",
+                "endpoint", "requests", "req/s", "rows/s", "4xx", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            Histogram histogram = entry.getValue().recorder.getIntervalHistogram();
+            histograms.put(entry.getKey(), histogram);
+            long requests = histogram.getTotalCount();
+            totalRequests += requests;
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("endpoint", entry.getKey().getPath());
+            row.put("requests", requests);
+            row.put("throughputPerSecond", requests / seconds);
+            // Ledger rows submitted, whether applied or rejected
+            double rowsPerSecond = requests * (entry.getKey() == Operation.APPLY_TRANSACTION_BULK ? bulkSize : 1) / seconds;
+            row.put("rowsPerSecond", rowsPerSecond);
+            row.put("clientErrors", entry.getValue().clientErrors.sum());
+            row.put("errors", entry.getValue().errors.sum());
+            row.put("meanMs", histogram.getMean() / 1000.0);
+            row.put("p50Ms", histogram.getValueAtPercentile(50) / 1000.0);
+            row.put("p90Ms", histogram.getValueAtPercentile(90) / 1000.0);
+            row.put("p99Ms", histogram.getValueAtPercentile(99) / 1000.0);
+            row.put("p999Ms", histogram.getValueAtPercentile(99.9) / 1000.0);
+            row.put("maxMs", histogram.getMaxValue() / 1000.0);
+            endpoints.add(row);
+            table.append(String.format("%n%-30s %9d %9.1f %9.1f %7d %7d %9.2f %9.2f %9.2f %9.2f %9.2f", row.get("endpoint"), requests,
+                    requests / seconds, rowsPerSecond, row.get("clientErrors"), row.get("errors"), row.get("p50Ms"), row.get("p90Ms"),
+                    row.get("p99Ms"), row.get("p999Ms"), row.get("maxMs")));
+        }
+        log.info("Load test finished: {} requests in {}s, {} req/s{}", totalRequests, String.format("%.1f", seconds),
+                String.format("%.1f", totalRequests / seconds), table);
+        Map<String, Object> idempotencyOverhead = idempotencyOverhead(histograms.get(Operation.APPLY_TRANSACTION),
+                histograms.get(Operation.APPLY_TRANSACTION_NO_KEY));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("threads", threads);
+        result.put("durationSeconds", seconds);
+        result.put("users", users);
+        result.put("hotAccounts", hotAccounts);
+        result.put("bulkSize", bulkSize);
+        result.put("throughputPerSecond", totalRequests / seconds);
+        result.put("endpoints", endpoints);
+        result.put("idempotencyKeyOverhead", idempotencyOverhead);
+        result.put("balanceMismatches", mismatches.size());
+        File file = new File(reportFile);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, result);
+        log.info("Load test report written to {}", file.getAbsolutePath());
+    }
+
+    // What sending an Idempotency-Key adds to apply-transaction's latency, or null unless both kinds ran
+    private static Map<String, Object> idempotencyOverhead(Histogram keyed, Histogram unkeyed) {
+        if (keyed == null || unkeyed == null || keyed.getTotalCount() == 0 || unkeyed.getTotalCount() == 0) {
+            return null;
+        }
+        Map<String, Object> overhead = new LinkedHashMap<>();
+        overhead.put("meanMs", (keyed.getMean() - unkeyed.getMean()) / 1000.0);
+        overhead.put("p50Ms", (keyed.getValueAtPercentile(50) - unkeyed.getValueAtPercentile(50)) / 1000.0);
+        overhead.put("p99Ms", (keyed.getValueAtPercentile(99) - unkeyed.getValueAtPercentile(99)) / 1000.0);
+        overhead.put("meanPercent", 100 * (keyed.getMean() / unkeyed.getMean() - 1));
+        log.info("Idempotency-Key overhead on apply-transaction: {} ms mean ({}%), {} ms at p50, {} ms at p99",
+                String.format("%+.2f", overhead.get("meanMs")), String.format("%+.1f", overhead.get("meanPercent")),
+                String.format("%+.2f", overhead.get("p50Ms")), String.format("%+.2f", overhead.get("p99Ms")));
+        return overhead;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private enum Operation {
+        LOGIN("login"),
+        APPLY_TRANSACTION("apply-transaction"),
+        APPLY_TRANSACTION_NO_KEY("apply-transaction, no key"),
+        FETCH_LOAN("fetch-loan"),
+        FETCH_TRANSACTION_STATEMENT("fetch-transaction-statement"),
+        RECORD_REPAYMENT("record-repayment"),
+        APPLY_TRANSACTION_BULK("apply-transaction/bulk");
+        private final String path;
+    }
+
+    /**
+     * Latencies in microseconds of the completed requests of one endpoint. 4xx responses are business
+     * rejections such as insufficient funds; errors are 5xx responses and requests that got no response.
+     */
+    private static class OperationStats {
+        private final Recorder recorder = new Recorder(MAX_LATENCY_MICROS, 3);
+        private final LongAdder clientErrors = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        void record(HttpClient httpClient, HttpRequest request) {
+            long started = System.nanoTime();
+            try {
+                int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                recorder.recordValue(Math.min(MAX_LATENCY_MICROS, (System.nanoTime() - started) / 1000));
+                if (status >= 500) {
+                    errors.increment();
+                } else if (status >= 400) {
+                    clientErrors.increment();
+                }
+            } catch (IOException e) {
+                errors.increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Drops what was recorded during the warmup
+        void reset() {
+            recorder.reset();
+            clientErrors.reset();
+            errors.reset();
+        }
+    }
+}
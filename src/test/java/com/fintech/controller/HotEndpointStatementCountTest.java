@@ -0,0 +1,119 @@
+package com.fintech.controller;
+
+import com.fintech.model.Admin;
+import com.fintech.model.Loan;
+import com.fintech.model.Money;
+import com.fintech.model.Transactions;
+import com.fintech.model.UsersAccount;
+import com.fintech.model.enums.AppStatus;
+import com.fintech.model.enums.LoanStatus;
+import com.fintech.model.enums.TransactionType;
+import com.fintech.repository.AdminRepository;
+import com.fintech.repository.LoanRepository;
+import com.fintech.repository.TransactionRepository;
+import com.fintech.repository.UserAccountRepository;
+import com.fintech.service.JWTService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards the statement counts of the read endpoints that run on every screen. Each request goes through the
+ * full filter chain and is counted by the same hibernate.request.statements summary production records, so a
+ * lazy association that starts loading row by row (an N+1) fails here rather than in production.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class HotEndpointStatementCountTest {
+    private static final int ROWS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private JWTService jwtService;
+    @Autowired
+    private AdminRepository adminRepository;
+    @Autowired
+    private UserAccountRepository userAccountRepository;
+    @Autowired
+    private LoanRepository loanRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private Admin admin;
+    private UsersAccount user;
+
+    // Every loan, transaction and user points at other rows, so any of them loaded one by one would show up
+    @BeforeAll
+    void seed() {
+        admin = adminRepository.save(Admin.builder().fullName("Statement Count").email("statements-admin@fintech.test")
+                .phoneNumber("+2348000000000").password("unused").accountStatus(AppStatus.COMPLETED).build());
+        List<UsersAccount> users = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            users.add(UsersAccount.builder().fullName("User " + i).email("statements-user-" + i + "@fintech.test")
+                    .password("unused").accountStatus(AppStatus.COMPLETED).isVerified(true).verifiedBy(admin)
+                    .accountBalance(Money.ofMajor(1_000)).createdDate(LocalDateTime.now()).build());
+        }
+        userAccountRepository.saveAll(users);
+        user = users.get(0);
+        List<Loan> loans = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            loans.add(Loan.builder().loanAmount(Money.ofMajor(100)).tenure(6).interestRate(BigDecimal.valueOf(5))
+                    .totalAmount(Money.ofMajor(105)).status(LoanStatus.OUTSTANDING).user(user).admin(admin).verifiedBy(admin)
+                    .createdDate(LocalDateTime.now()).build());
+        }
+        loanRepository.saveAll(loans);
+        List<Transactions> transactions = new ArrayList<>();
+        for (Loan loan : loans) {
+            transactions.add(Transactions.builder().amount(Money.ofMajor(100)).transactionType(TransactionType.DISBURSEMENT)
+                    .transactionDate(LocalDateTime.now().minusDays(1)).status(AppStatus.COMPLETED).user(user).loan(loan)
+                    .verifiedBy(admin).build());
+        }
+        transactionRepository.saveAll(transactions);
+    }
+
+    @Test
+    void fetchLoanLoadsTheLoansWithTheirUserInOneQuery() throws Exception {
+        assertStatements("/api/account/fetch-loan", "/api/account/fetch-loan?userId=" + user.getId(), jwtService.generateToken(user), 1);
+    }
+
+    // The account check, the archived-months cutoff (read for the page and again for the opening balance), the
+    // page itself, the nearest balance checkpoint and the sum since it; none of them depends on the page size
+    @Test
+    void transactionStatementReadsOnePageWithoutTouchingAssociations() throws Exception {
+        assertStatements("/api/account/fetch-transaction-statement", "/api/account/fetch-transaction-statement?userId=" + user.getId(),
+                jwtService.generateToken(user), 6);
+    }
+
+    @Test
+    void allUsersReadsOneSummaryPage() throws Exception {
+        assertStatements("/api/admin/all-users", "/api/admin/all-users", jwtService.generateToken(admin), 1);
+    }
+
+    private void assertStatements(String pattern, String url, String token, long expected) throws Exception {
+        mockMvc.perform(get(url).header("Authorization", "Bearer " + token)).andExpect(status().isOk());
+        DistributionSummary statements = meterRegistry.get("hibernate.request.statements").tag("uri", pattern).summary();
+        assertThat(statements.count()).isEqualTo(1);
+        assertThat((long) statements.max()).as("SQL statements for " + url).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,192 @@
+package com.fintech.repository;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.fintech.model.Money;
+import com.fintech.model.UsersAccount;
+import com.fintech.model.enums.AppStatus;
+import com.fintech.model.enums.ArchiveStatus;
+import com.fintech.model.enums.LoanStatus;
+import com.fintech.model.enums.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs EXPLAIN on the SQL behind every query method of the repositories and fails if any table in the plan is
+ * read with a full scan. The schema is the one the Flyway migrations build, on H2 in MySQL mode; H2's planner is
+ * simpler than MySQL's, but a query it cannot answer from an index has no index MySQL could use either.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class RepositoryQueryIndexTest {
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\* \\w+\\.(\\w+)\\.tableScan \\*/");
+    // One row per archived month, so reading all of it is cheaper than keeping an index on it
+    private static final Set<String> SMALL_TABLES = Set.of("transaction_archive");
+    // A min or max H2 answers from the end of an index; the plan still names the table scan it skips
+    private static final String DIRECT_LOOKUP = "/* direct lookup */";
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private AdminRepository adminRepository;
+    @Autowired
+    private UserAccountRepository userAccountRepository;
+    @Autowired
+    private LoanRepository loanRepository;
+    @Autowired
+    private LoanInstallmentRepository loanInstallmentRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private BalanceCheckpointRepository balanceCheckpointRepository;
+    @Autowired
+    private DailyTransactionRollupRepository dailyTransactionRollupRepository;
+    @Autowired
+    private RollupWatermarkRepository rollupWatermarkRepository;
+    @Autowired
+    private TransactionArchiveRepository transactionArchiveRepository;
+    @Autowired
+    private TransactionArchiveSegmentRepository transactionArchiveSegmentRepository;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    @Autowired
+    private CacheInvalidationRepository cacheInvalidationRepository;
+    @Autowired
+    private PrincipalRevocationRepository principalRevocationRepository;
+
+    @Test
+    void accountQueriesUseIndexes() {
+        assertIndexed("findByEmail", () -> userAccountRepository.findByEmail("user@fintech.test"));
+        assertIndexed("findCachedById", () -> userAccountRepository.findCachedById(1L));
+        assertIndexed("creditBalance", () -> userAccountRepository.creditBalance(1L, Money.ofMajor(1)));
+        assertIndexed("debitBalance", () -> userAccountRepository.debitBalance(1L, Money.ofMajor(1)));
+        assertIndexed("adjustBalance", () -> userAccountRepository.adjustBalance(1L, Money.ofMajor(1)));
+        assertIndexed("findAllByIdForUpdate", () -> userAccountRepository.findAllByIdForUpdate(List.of(1L, 2L)));
+        assertIndexed("findAccountBalanceById", () -> userAccountRepository.findAccountBalanceById(1L));
+        assertIndexed("findSummaryPage", () -> userAccountRepository.findSummaryPage(0L, AppStatus.COMPLETED, true,
+                NOW.minusDays(30), NOW, PageRequest.of(0, 50)));
+        assertIndexed("updatePassword", () -> userAccountRepository.updatePassword(1L, "hash"));
+        assertIndexed("admin findByEmail", () -> adminRepository.findByEmail("admin@fintech.test"));
+        assertIndexed("admin findCachedById", () -> adminRepository.findCachedById(1L));
+        assertIndexed("admin updatePassword", () -> adminRepository.updatePassword(1L, "hash"));
+        assertIndexed("findAllByRevokedAtAfter", () -> principalRevocationRepository.findAllByRevokedAtAfter(NOW.minusHours(1)));
+    }
+
+    @Test
+    void loanQueriesUseIndexes() {
+        UsersAccount user = UsersAccount.builder().id(1L).build();
+        assertIndexed("existsByUserAndStatusIn", () -> loanRepository.existsByUserAndStatusIn(user, List.of(LoanStatus.OUTSTANDING)));
+        assertIndexed("findAllByUser_Id", () -> loanRepository.findAllByUser_Id(1L));
+        assertIndexed("findAllByStatus", () -> loanRepository.findAllByStatus(LoanStatus.PENDING));
+        assertIndexed("findWithUserById", () -> loanRepository.findWithUserById(1L));
+        assertIndexed("findIdsByStatusIn", () -> loanRepository.findIdsByStatusIn(List.of(LoanStatus.OUTSTANDING)));
+        assertIndexed("findLatestId", () -> loanRepository.findLatestId());
+        assertIndexed("findAllByLoan_IdOrderByInstallmentNumber", () -> loanInstallmentRepository.findAllByLoan_IdOrderByInstallmentNumber(1L));
+        assertIndexed("deleteAllByLoanIds", () -> loanInstallmentRepository.deleteAllByLoanIds(List.of(1L, 2L)));
+    }
+
+    @Test
+    void ledgerQueriesUseIndexes() {
+        assertIndexed("transactions findAllByUser_Id", () -> transactionRepository.findAllByUser_Id(1L));
+        assertIndexed("findStatementPage", () -> transactionRepository.findStatementPage(1L, NOW.minusDays(30), 0L, NOW, PageRequest.of(0, 50)));
+        assertIndexed("streamStatement", () -> transactionRepository.streamStatement(1L, NOW.minusDays(30), 0L, NOW).count());
+        assertIndexed("sumSignedAmountBetween", () -> transactionRepository.sumSignedAmountBetween(1L, TransactionType.CREDITS,
+                NOW.minusDays(30), 0L, NOW, Long.MAX_VALUE));
+        assertIndexed("findUserIdsWithTransactionsAfter", () -> transactionRepository.findUserIdsWithTransactionsAfter(NOW.minusMinutes(5)));
+        assertIndexed("findLatestUpTo", () -> balanceCheckpointRepository.findLatestUpTo(1L, NOW, Long.MAX_VALUE, PageRequest.of(0, 1)));
+        assertIndexed("findFirstByUserId...", () -> balanceCheckpointRepository.findFirstByUserIdOrderByTransactionDateDescTransactionIdDesc(1L));
+        assertIndexed("daily rollups", () -> dailyTransactionRollupRepository
+                .findAllByUserIdAndRollupDateBetweenOrderByRollupDateAscTransactionTypeAsc(1L, LocalDate.now().minusDays(30), LocalDate.now()));
+        assertIndexed("findForUpdate", () -> rollupWatermarkRepository.findForUpdate("daily"));
+        assertIndexed("findOverlapping", () -> transactionArchiveSegmentRepository.findOverlapping(1L, NOW.minusYears(1), NOW));
+    }
+
+    @Test
+    void housekeepingQueriesUseIndexes() {
+        assertIndexed("findUnpublished", () -> outboxEventRepository.findUnpublished(NOW, PageRequest.of(0, 100)));
+        assertIndexed("reclaim", () -> outboxEventRepository.reclaim(1L, NOW, NOW));
+        assertIndexed("markPublished", () -> outboxEventRepository.markPublished(List.of(1L, 2L), NOW));
+        assertIndexed("deletePublishedBefore", () -> outboxEventRepository.deletePublishedBefore(NOW.minusDays(7)));
+        assertIndexed("idempotency deleteCreatedBefore", () -> idempotencyRecordRepository.deleteCreatedBefore(NOW.minusDays(1)));
+        assertIndexed("findAllByIdGreaterThanOrderById", () -> cacheInvalidationRepository.findAllByIdGreaterThanOrderById(0L));
+        assertIndexed("cache findLatestId", () -> cacheInvalidationRepository.findLatestId());
+        assertIndexed("cache deleteCreatedBefore", () -> cacheInvalidationRepository.deleteCreatedBefore(NOW.minusHours(1)));
+        assertIndexed("findArchivedBefore", () -> transactionArchiveRepository.findArchivedBefore());
+        assertIndexed("archives by status", () -> transactionArchiveRepository
+                .findAllByStatusAndArchivedDateBeforeOrderByPeriodStart(ArchiveStatus.ARCHIVED, NOW));
+        assertIndexed("findLatestCreatedDate", () -> balanceCheckpointRepository.findLatestCreatedDate());
+    }
+
+    // Runs the query with Hibernate's SQL log captured, then explains each statement it sent with its parameters unbound
+    private void assertIndexed(String query, Runnable invocation) {
+        Logger sqlLogger = (Logger) LoggerFactory.getLogger("org.hibernate.SQL");
+        Level level = sqlLogger.getLevel();
+        ListAppender<ILoggingEvent> statements = new ListAppender<>();
+        statements.start();
+        sqlLogger.addAppender(statements);
+        sqlLogger.setLevel(Level.DEBUG);
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.executeWithoutResult(status -> {
+                invocation.run();
+                status.setRollbackOnly();
+            });
+        } finally {
+            sqlLogger.setLevel(level);
+            sqlLogger.detachAppender(statements);
+        }
+        assertThat(statements.list).as("SQL sent by " + query).isNotEmpty();
+        for (ILoggingEvent statement : statements.list) {
+            String plan = explain(statement.getFormattedMessage());
+            if (plan.contains(DIRECT_LOOKUP)) {
+                continue;
+            }
+            Matcher scan = TABLE_SCAN.matcher(plan);
+            while (scan.find()) {
+                assertThat(SMALL_TABLES).as(query + " scans a whole table:%n%s", plan).contains(scan.group(1));
+            }
+        }
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute("explain " + sql.replaceFirst("(?i)\\s+for update\\s*$", ""), (PreparedStatement explain) -> {
+            for (int i = 1; i <= explain.getParameterMetaData().getParameterCount(); i++) {
+                explain.setNull(i, Types.NULL);
+            }
+            List<String> rows = new ArrayList<>();
+            try (ResultSet plan = explain.executeQuery()) {
+                while (plan.next()) {
+                    rows.add(plan.getString(1));
+                }
+            }
+            return String.join("\n", rows);
+        });
+    }
+}
@@ -0,0 +1,89 @@
+package com.fintech.service;
+
+import com.fintech.event.DomainEventConsumer;
+import com.fintech.event.PublishedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DomainEventBusTest {
+    private static final int EVENTS = 20;
+
+    @Test
+    void consumerThatFailsOnceIsRetriedAndEveryEventIsAcknowledged() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Set<Long> handled = ConcurrentHashMap.newKeySet();
+        List<Long> acknowledged = run(events -> {
+            if (calls.getAndIncrement() == 0) {
+                throw new IllegalStateException("Downstream unavailable");
+            }
+            events.forEach(event -> handled.add(event.getOutboxId()));
+        });
+
+        assertThat(handled).hasSize(EVENTS);
+        assertThat(acknowledged).hasSize(EVENTS);
+    }
+
+    @Test
+    void eventsAConsumerGivesUpOnAreLeftUnpublished() throws Exception {
+        List<Long> acknowledged = run(events -> {
+            if (events.stream().anyMatch(event -> event.getOutboxId() == 7)) {
+                throw new IllegalStateException("Cannot handle event 7");
+            }
+        });
+
+        assertThat(acknowledged).doesNotContain(7L).isNotEmpty();
+    }
+
+    // Offers the events one at a time to a bus with a healthy consumer and the given one, and returns what was acknowledged
+    private static List<Long> run(Consumer<List<PublishedEvent>> handler) throws InterruptedException {
+        List<Long> acknowledged = new CopyOnWriteArrayList<>();
+        DomainEventBus bus = new DomainEventBus(64, 4, 2, 1,
+                List.of(consumer("healthy", events -> { }), consumer("flaky", handler)),
+                consumer("outbox", events -> events.forEach(event -> acknowledged.add(event.getOutboxId()))),
+                new SimpleMeterRegistry());
+        bus.start();
+        try {
+            for (long id = 0; id < EVENTS; id++) {
+                assertThat(bus.offer(List.of(new PublishedEvent(id, null)))).isTrue();
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            List<Long> previous = new ArrayList<>();
+            // Done once the acknowledger has stopped moving for a while
+            while (System.nanoTime() < deadline) {
+                Thread.sleep(100);
+                if (!acknowledged.isEmpty() && acknowledged.equals(previous)) {
+                    break;
+                }
+                previous = new ArrayList<>(acknowledged);
+            }
+        } finally {
+            bus.stop();
+        }
+        return acknowledged;
+    }
+
+    private static DomainEventConsumer consumer(String name, Consumer<List<PublishedEvent>> handler) {
+        return new DomainEventConsumer() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public void onEvents(List<PublishedEvent> events) {
+                handler.accept(events);
+            }
+        };
+    }
+}
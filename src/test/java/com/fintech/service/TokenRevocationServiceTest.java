@@ -0,0 +1,38 @@
+package com.fintech.service;
+
+import com.fintech.dto.JwtPrincipal;
+import com.fintech.model.UsersAccount;
+import com.fintech.model.enums.AppStatus;
+import com.fintech.model.enums.Role;
+import com.fintech.repository.PrincipalRevocationRepository;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class TokenRevocationServiceTest {
+    private final JWTServiceImpl jwtService = new JWTServiceImpl();
+    private final TokenRevocationService tokenRevocationService =
+            new TokenRevocationService(mock(PrincipalRevocationRepository.class));
+
+    @Test
+    void tokenIssuedBeforeRevocationIsRejectedAndOneIssuedInTheSameSecondAfterItIsAccepted() throws Exception {
+        UsersAccount user = UsersAccount.builder().id(7L).email("user@fintech.test").accountStatus(AppStatus.COMPLETED).build();
+        // Start early in a second so both tokens and the revocation share it
+        Thread.sleep(1000 - System.currentTimeMillis() % 1000 + 50);
+
+        JwtPrincipal before = principal(jwtService.generateToken(user));
+        Thread.sleep(5);
+        tokenRevocationService.revoke(Role.USER, 7L);
+        Thread.sleep(5);
+        JwtPrincipal after = principal(jwtService.generateToken(user));
+
+        assertThat(after.getIssuedAt().getTime() / 1000).isEqualTo(before.getIssuedAt().getTime() / 1000);
+        assertThat(tokenRevocationService.isRevoked(before)).isTrue();
+        assertThat(tokenRevocationService.isRevoked(after)).isFalse();
+    }
+
+    private JwtPrincipal principal(String token) {
+        return jwtService.parseToken(token).orElseThrow();
+    }
+}
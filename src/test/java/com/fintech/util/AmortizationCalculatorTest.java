@@ -0,0 +1,30 @@
+package com.fintech.util;
+
+import com.fintech.model.enums.RepaymentMethod;
+import com.fintech.util.AmortizationCalculator.Schedule;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AmortizationCalculatorTest {
+
+    // The loans of each LoanService.calculateInterestRate band, in minor units
+    @ParameterizedTest
+    @CsvSource({"500000, 6, 5", "500000, 36, 5", "25000000, 6, 7", "25000000, 11, 7", "25000000, 12, 10", "25000000, 36, 10"})
+    void reducingBalanceCostsAboutHalfTheFlatInterestOnTheSameRate(long principal, int tenure, int percent) {
+        long ratePpm = AmortizationCalculator.toPartsPerMillion(BigDecimal.valueOf(percent));
+        Schedule flat = AmortizationCalculator.generate(RepaymentMethod.FLAT, principal, ratePpm, tenure);
+        Schedule reducing = AmortizationCalculator.generate(RepaymentMethod.REDUCING_BALANCE, principal, ratePpm, tenure);
+
+        assertThat(flat.totalInterest()).isEqualTo(principal * percent / 100);
+        // Charging the same monthly rate on a balance that falls evenly to zero averages (tenure + 1) / (2 tenure)
+        // of the principal; equal installments repay a little slower, so a little more
+        double ratio = (double) reducing.totalInterest() / flat.totalInterest();
+        assertThat(ratio).isBetween((tenure + 1) / (2.0 * tenure), (tenure + 1) / (2.0 * tenure) * 1.05);
+        assertThat(flat.balanceAfter(tenure - 1)).isZero();
+        assertThat(reducing.balanceAfter(tenure - 1)).isZero();
+    }
+}
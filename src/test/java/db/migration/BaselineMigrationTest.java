@@ -0,0 +1,95 @@
+package db.migration;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A database created by the original application, loaded from its dump in fintech_app.sql, is baselined at V1 and
+ * then migrated; it must end up with the same tables, columns and indexes as one built by running every migration
+ * from scratch.
+ */
+class BaselineMigrationTest {
+    private static final String COLUMNS = "select table_name, column_name, type_name, numeric_precision, numeric_scale, is_nullable "
+            + "from information_schema.columns where table_schema = 'public' and table_name <> 'flyway_schema_history' "
+            + "order by table_name, column_name";
+    private static final String INDEXES = "select table_name, index_name, column_name, non_unique from information_schema.indexes "
+            + "where table_schema = 'public' and table_name <> 'flyway_schema_history' and upper(index_name) not like 'PRIMARY_KEY%' "
+            + "order by table_name, index_name, ordinal_position";
+
+    @Test
+    void baselinedDatabaseMigratesToTheSameSchemaAsANewOne() throws Exception {
+        DataSource fresh = dataSource("fresh");
+        Flyway.configure().dataSource(fresh).load().migrate();
+
+        DataSource existing = dataSource("existing");
+        loadDump(existing, Path.of("fintech_app.sql"));
+        Flyway.configure().dataSource(existing).baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+        assertThat(schema(fresh, INDEXES)).isNotEmpty();
+        assertThat(schema(existing, COLUMNS)).isEqualTo(schema(fresh, COLUMNS));
+        assertThat(schema(existing, INDEXES)).isEqualTo(schema(fresh, INDEXES));
+    }
+
+    private static void loadDump(DataSource dataSource, Path dump) throws Exception {
+        // H2 only knows the UTF-8 character sets and writes bits as booleans; the table locks around the data are
+        // MySQL's own
+        String script = Files.readString(dump)
+                .replace("DEFAULT CHARSET=latin1", "")
+                .replace("_binary '\u0001'", "true")
+                .replace("_binary '\\0'", "false");
+        List<String> statements = new ArrayList<>();
+        ScriptUtils.splitSqlScript(script, ";", statements);
+        statements.removeIf(statement -> statement.startsWith("LOCK TABLES") || statement.startsWith("UNLOCK TABLES"));
+        try (Connection connection = dataSource.getConnection(); Statement jdbc = connection.createStatement()) {
+            // The dump creates tables in name order with foreign key checks off, so a table can refer to one
+            // created after it; those statements are run again once the rest are in
+            while (!statements.isEmpty()) {
+                List<String> failed = new ArrayList<>();
+                SQLException lastFailure = null;
+                for (String statement : statements) {
+                    try {
+                        jdbc.execute(statement);
+                    } catch (SQLException e) {
+                        failed.add(statement);
+                        lastFailure = e;
+                    }
+                }
+                if (failed.size() == statements.size()) {
+                    throw lastFailure;
+                }
+                statements = failed;
+            }
+        }
+    }
+
+    private static DataSource dataSource(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        return dataSource;
+    }
+
+    private static List<String> schema(DataSource dataSource, String query) {
+        return new JdbcTemplate(dataSource).query(query, (row, number) -> {
+            StringBuilder line = new StringBuilder();
+            for (int i = 1; i <= row.getMetaData().getColumnCount(); i++) {
+                line.append(row.getString(i)).append(' ');
+            }
+            return line.toString();
+        });
+    }
+}